@@ -0,0 +1,15 @@
+package com.sasindu.springsecurity.abstractions.dto.response.product;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductImportResponseDto {
+    private long imported;
+    private long skipped;
+    private List<String> errors;
+}
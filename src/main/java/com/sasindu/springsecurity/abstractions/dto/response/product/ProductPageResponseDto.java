@@ -0,0 +1,15 @@
+package com.sasindu.springsecurity.abstractions.dto.response.product;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPageResponseDto {
+    private List<ProductResponseDto> items;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -4,11 +4,29 @@ package com.sasindu.springsecurity.abstractions.dto.response.product;
 import com.sasindu.springsecurity.abstractions.dto.response.category.CategoryResponseDto;
 import jakarta.persistence.Column;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class ProductResponseDto {
     private Long id;
     @Column(nullable = false, length = 200)
     private String name;
     private CategoryResponseDto category;
+
+
+    /**
+     * Constructor used by the listing query to project the selected columns directly into the dto
+     * @param id Long
+     * @param name String
+     * @param categoryId Long
+     * @param categoryName String
+     */
+    public ProductResponseDto(Long id, String name, Long categoryId, String categoryName) {
+        this.id = id;
+        this.name = name;
+        this.category = new CategoryResponseDto();
+        this.category.setId(categoryId);
+        this.category.setName(categoryName);
+    }
 }
@@ -0,0 +1,6 @@
+package com.sasindu.springsecurity.abstractions.enums;
+
+public enum AccessTokenRevocationType {
+    TOKEN, // A single access token, by jti
+    USER // All the access tokens of a user issued up to a time, except the new session token
+}
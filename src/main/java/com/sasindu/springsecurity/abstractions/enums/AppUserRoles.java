@@ -1,6 +1,17 @@
 package com.sasindu.springsecurity.abstractions.enums;
 
+import lombok.Getter;
+
+// The bit of each role in compact access tokens is part of the token format - never change or reuse a bit
+@Getter
 public enum AppUserRoles {
-    ROLE_ADMIN,
-    ROLE_USER
-}
\ No newline at end of file
+    ROLE_ADMIN(0),
+    ROLE_USER(1);
+
+    private final int bit;
+
+
+    AppUserRoles(int bit) {
+        this.bit = bit;
+    }
+}
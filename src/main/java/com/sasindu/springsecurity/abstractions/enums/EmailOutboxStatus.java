@@ -0,0 +1,8 @@
+package com.sasindu.springsecurity.abstractions.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    // Claimed by a worker of some instance, nextAttemptAt is the end of its lease
+    SENDING,
+    DEAD
+}
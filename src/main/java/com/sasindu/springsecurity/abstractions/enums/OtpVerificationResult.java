@@ -0,0 +1,8 @@
+package com.sasindu.springsecurity.abstractions.enums;
+
+public enum OtpVerificationResult {
+    NOT_FOUND, // No OTP of the type for the user
+    INVALID, // The code does not match
+    EXPIRED, // The code matches but the OTP has expired
+    VALID
+}
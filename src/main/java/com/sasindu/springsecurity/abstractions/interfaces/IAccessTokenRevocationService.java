@@ -0,0 +1,22 @@
+package com.sasindu.springsecurity.abstractions.interfaces;
+
+import com.sasindu.springsecurity.security.jwt.AccessTokenClaims;
+
+public interface IAccessTokenRevocationService {
+
+    /**
+     * Revoke a single access token, e.g. on logout
+     *
+     * @param claims AccessTokenClaims - claims of the verified token
+     */
+    void revokeToken(AccessTokenClaims claims);
+
+
+    /**
+     * Revoke all the access tokens of a user issued until now, e.g. on password change
+     *
+     * @param userId Long
+     * @param exemptJti String - id of the access token of the session started for the user with the revocation, null for none
+     */
+    void revokeAllForUser(Long userId, String exemptJti);
+}
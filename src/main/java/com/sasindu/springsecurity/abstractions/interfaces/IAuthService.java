@@ -27,6 +27,16 @@ public interface IAuthService {
     void login(LoginRequestDto request, HttpServletResponse response);
 
 
+    /**
+     * Start a new session - set the cookies of a new access token and refresh token family
+     *
+     * @param user AppUser object
+     * @param response HttpServletResponse object
+     * @return String - id (jti) of the new access token
+     */
+    String startSession(AppUser user, HttpServletResponse response);
+
+
     /**
      * Get the authenticated user
      *
@@ -45,9 +55,12 @@ public interface IAuthService {
 
 
     /**
-     * Logout
+     * Logout - revokes the refresh token family of the session
+     *
+     * @param request HttpServletRequest object
+     * @param response HttpServletResponse object
      */
-    void logout(HttpServletResponse response);
+    void logout(HttpServletRequest request, HttpServletResponse response);
 
 
     /**
@@ -0,0 +1,38 @@
+package com.sasindu.springsecurity.abstractions.interfaces;
+
+import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
+import com.sasindu.springsecurity.entities.UserOtp;
+
+
+/**
+ * Storage of the one time passwords, at most one OTP per type and user.
+ * The implementation is selected with the otp.store.type property (memory or jpa).
+ */
+public interface IOtpStore {
+
+    /**
+     * Check the code and the expiry of the OTP of the type and user ID, with a single lookup
+     * @param type - Type of the OTP
+     * @param userId - ID of the user
+     * @param otp - Code to check
+     * @return OtpVerificationResult
+     */
+    OtpVerificationResult verify(OtpEmailType type, Long userId, String otp);
+
+
+    /**
+     * Store the OTP, replacing any existing OTP of the same type for the user
+     * @param userOtp - UserOtp object, the user must have an ID
+     * @return UserOtp
+     */
+    UserOtp put(UserOtp userOtp);
+
+
+    /**
+     * Delete the OTP by type and user ID
+     * @param type - Type of the OTP
+     * @param userId - ID of the user
+     */
+    void delete(OtpEmailType type, Long userId);
+}
@@ -0,0 +1,27 @@
+package com.sasindu.springsecurity.abstractions.interfaces;
+
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductImportResponseDto;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface IProductBulkService {
+
+    /**
+     * Import products from a CSV or NDJSON stream
+     *
+     * @param input InputStream - the request body
+     * @param format String - csv or ndjson
+     * @return ProductImportResponseDto object
+     */
+    ProductImportResponseDto importProducts(InputStream input, String format);
+
+
+    /**
+     * Export all products as CSV or NDJSON
+     *
+     * @param output OutputStream - the response body
+     * @param format String - csv or ndjson
+     */
+    void exportProducts(OutputStream output, String format);
+}
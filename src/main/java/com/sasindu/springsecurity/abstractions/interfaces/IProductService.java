@@ -2,10 +2,9 @@ package com.sasindu.springsecurity.abstractions.interfaces;
 
 import com.sasindu.springsecurity.abstractions.dto.request.product.AddProductRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.product.UpdateProductRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductPageResponseDto;
 import com.sasindu.springsecurity.entities.Product;
 
-import java.util.List;
-
 public interface IProductService {
 
     /**
@@ -45,10 +44,20 @@ public interface IProductService {
 
 
     /**
-     * Get all products
+     * Get a page of products - ordered by id, or by relevance when searching by name
      *
-     * @return List of Product objects
+     * @param name String - optional name filter
+     * @param category String - optional category name filter
+     * @param cursor String - nextCursor of the previous page, null for the first page
+     * @param size Integer - requested page size, capped by the configured max page size
+     * @return ProductPageResponseDto object
+     */
+    ProductPageResponseDto getAllProducts(String name, String category, String cursor, Integer size);
+
+
+    /**
+     * Rebuild the product search index from the database
      */
-    List<Product> getAllProducts(String name, String category);
+    void rebuildSearchIndex();
 
 }
@@ -0,0 +1,20 @@
+package com.sasindu.springsecurity.abstractions.interfaces;
+
+import com.sasindu.springsecurity.security.ratelimit.RateLimitRule;
+
+
+/**
+ * Storage of the rate limit token buckets.
+ * The in-memory store limits each instance on its own; a shared implementation (e.g. Redis) can be
+ * plugged in with the rate.limit.store.type property to enforce the limits across instances.
+ */
+public interface IRateLimitStore {
+
+    /**
+     * Take a token from the bucket of the key, creating a full bucket on first use
+     * @param key - Bucket key, e.g. endpoint, dimension and client
+     * @param rule - Capacity and refill period of the bucket
+     * @return long - 0 if a token was taken, otherwise the milliseconds until the next token is available
+     */
+    long tryConsume(String key, RateLimitRule rule);
+}
@@ -0,0 +1,52 @@
+package com.sasindu.springsecurity.abstractions.interfaces;
+
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.security.jwt.RefreshTokenClaims;
+
+public interface IRefreshTokenService {
+
+    /**
+     * Start a new token family (login session) and issue its first refresh token
+     *
+     * @param user AppUser - the user logging in
+     * @return String - the refresh token
+     */
+    String createFamily(AppUser user);
+
+
+    /**
+     * Verify a refresh token - signature, expiry and revocation of its family
+     *
+     * @param refreshToken String
+     * @return RefreshTokenClaims
+     */
+    RefreshTokenClaims verify(String refreshToken);
+
+
+    /**
+     * Replace a verified refresh token with the next token of its family.
+     * Presenting a token that was already rotated revokes the whole family, unless it was rotated by a
+     * concurrent refresh within the grace period, which gets the current token of the family.
+     *
+     * @param claims RefreshTokenClaims - claims of the verified token
+     * @param user AppUser - owner of the token
+     * @return String - the new refresh token
+     */
+    String rotate(RefreshTokenClaims claims, AppUser user);
+
+
+    /**
+     * Revoke the family of a refresh token, invalid tokens are ignored
+     *
+     * @param refreshToken String
+     */
+    void revokeFamily(String refreshToken);
+
+
+    /**
+     * Revoke all the token families of a user
+     *
+     * @param userId Long
+     */
+    void revokeAllForUser(Long userId);
+}
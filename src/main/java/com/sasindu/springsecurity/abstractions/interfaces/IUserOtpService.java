@@ -1,17 +1,19 @@
 package com.sasindu.springsecurity.abstractions.interfaces;
 
 import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
 import com.sasindu.springsecurity.entities.UserOtp;
 
 public interface IUserOtpService {
 
     /**
-     * Find the OTP by type and user ID
+     * Check the code and the expiry of the OTP by type and user ID
      * @param type - Type of the OTP
      * @param userId - ID of the user
-     * @return UserOtp
+     * @param otp - Code to check
+     * @return OtpVerificationResult
      */
-    UserOtp findByTypeAndUserId(OtpEmailType type, Long userId);
+    OtpVerificationResult verifyOtp(OtpEmailType type, Long userId, String otp);
 
 
     /**
@@ -23,7 +25,7 @@ public interface IUserOtpService {
 
 
     /**
-     * Save the OTP
+     * Save the OTP, replacing any existing OTP of the same type for the user
      * @param userOtp - UserOtp object
      * @return UserOtp
      */
@@ -3,6 +3,7 @@ package com.sasindu.springsecurity.abstractions.interfaces;
 import com.sasindu.springsecurity.abstractions.dto.request.user.UpdateUserPasswordRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.user.UpdateUserRequestDto;
 import com.sasindu.springsecurity.entities.AppUser;
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.util.List;
 
@@ -28,12 +29,14 @@ public interface IUserService {
 
 
     /**
-     * Update a user password
+     * Update a user password - all the sessions of the user are revoked and a new session is started
+     * in the response cookies, so only the caller stays logged in
      *
      * @param request PasswordUpdateRequestDto object
      * @param id Long object
+     * @param response HttpServletResponse object
      */
-    void updateUserPassword(UpdateUserPasswordRequestDto request, Long id);
+    void updateUserPassword(UpdateUserPasswordRequestDto request, Long id, HttpServletResponse response);
 
 
     /**
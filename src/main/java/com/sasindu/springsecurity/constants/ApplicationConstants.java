@@ -20,6 +20,7 @@ public class ApplicationConstants {
             "/favicon.ico",
             "/error",
             "/webjars/**",
+            "/.well-known/jwks.json",
     };
     private static final String[] PUBLIC_API_SHARED_URLS = new String[]{
             "/api/v1/auth/**",
@@ -33,6 +34,11 @@ public class ApplicationConstants {
             "/api/v1/product/get-by-id/**",
             "/api/v1/product/get-all/**",
     };
+    // Public catalogue endpoints - served with ETag / Last-Modified validators
+    public static final String[] PUBLIC_CATALOGUE_URLS = combineArrays(
+            PUBLIC_API_CATEGORY_URLS,
+            PUBLIC_API_PRODUCT_URLS
+    );
     // Combine multiple arrays into one
     public static final String[] PUBLIC_URLS = combineArrays(
             PUBLIC_APPLICATION_URLS,
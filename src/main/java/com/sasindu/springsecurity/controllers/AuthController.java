@@ -56,13 +56,14 @@ public class AuthController {
 
     /**
      * Logs out a user
+     * @param request HttpServletRequest
      * @param response HttpServletResponse
      * @return ResponseEntity<ApiResponse>
      */
     @GetMapping("/logout")
-    public ResponseEntity<ApiResponse> logout(HttpServletResponse response){
+    public ResponseEntity<ApiResponse> logout(HttpServletRequest request, HttpServletResponse response){
         try{
-            _authService.logout(response);
+            _authService.logout(request, response);
             return SuccessResponse.handleSuccess("Logout successful", null, HttpStatus.OK.value(),null);
         } catch (Exception e) {
             return ErrorResponse.handleError(e);
@@ -0,0 +1,37 @@
+package com.sasindu.springsecurity.controllers;
+
+
+import com.sasindu.springsecurity.security.jwt.JWTKeyProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Publishes the public keys verifying the access tokens as a standard JWK set, so that other services can
+ * verify the tokens locally. The response is the bare JWK set (RFC 7517), not wrapped in an ApiResponse.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    private final JWTKeyProvider _keyProvider;
+
+
+    /**
+     * Get the JWK set - the active key and the keys still accepted during a rotation
+     * @return ResponseEntity<Map<String, Object>>
+     */
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        // Short max-age, so that verifiers pick up a new key well within the rotation overlap window
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(_keyProvider.accessJwks());
+    }
+}
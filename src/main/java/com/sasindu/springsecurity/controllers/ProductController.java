@@ -3,25 +3,30 @@ package com.sasindu.springsecurity.controllers;
 
 import com.sasindu.springsecurity.abstractions.dto.request.product.AddProductRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.product.UpdateProductRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductImportResponseDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductPageResponseDto;
 import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
+import com.sasindu.springsecurity.abstractions.interfaces.IProductBulkService;
 import com.sasindu.springsecurity.abstractions.interfaces.IProductService;
-import com.sasindu.springsecurity.entities.Product;
 import com.sasindu.springsecurity.helpers.ApiResponse;
 import com.sasindu.springsecurity.helpers.ErrorResponse;
 import com.sasindu.springsecurity.helpers.SuccessResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("${api.url.prefix}" + "/product")
 public class ProductController {
     private final IProductService _productService;
+    private final IProductBulkService _productBulkService;
 
 
     /**
@@ -94,18 +99,80 @@ public class ProductController {
 
 
     /**
-     * Get all products
+     * Get a page of products - pass the nextCursor of a page as cursor to get the following page
+     * @param name String
+     * @param category String
+     * @param cursor String
+     * @param size Integer
      * @return ResponseEntity<ApiResponse>
      */
     @GetMapping("/get-all")
-    public ResponseEntity<ApiResponse> getAllProducts(@RequestParam(required = false) String name, @RequestParam(required = false) String category){
+    public ResponseEntity<ApiResponse> getAllProducts(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ){
         try{
-            List<ProductResponseDto> response = _productService.getAllProducts(name, category).stream().map(Product::toProductResponse).toList();
+            ProductPageResponseDto response = _productService.getAllProducts(name, category, cursor, size);
             return SuccessResponse.handleSuccess("Products retrieved successfully",response, HttpStatus.OK.value(),null);
         } catch (Exception e) {
             return ErrorResponse.handleError(e);
         }
     }
+
+
+    /**
+     * Import products in bulk from the request body - only accessible by admins
+     * @param format String - csv (with a name,category header) or ndjson ({"name", "categoryName"} per line)
+     * @param request HttpServletRequest
+     * @return ResponseEntity<ApiResponse>
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse> importProducts(@RequestParam(defaultValue = "csv") String format, HttpServletRequest request){
+        try{
+            ProductImportResponseDto response = _productBulkService.importProducts(request.getInputStream(), format);
+            return SuccessResponse.handleSuccess("Products imported successfully", response, HttpStatus.OK.value(),null);
+        } catch (Exception e) {
+            return ErrorResponse.handleError(e);
+        }
+    }
+
+
+    /**
+     * Export all products, streamed as they are read - only accessible by admins
+     * @param format String - csv or ndjson
+     * @return ResponseEntity<StreamingResponseBody>
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format){
+        boolean isCsv = "csv".equalsIgnoreCase(format);
+        if (!isCsv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(isCsv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + format.toLowerCase())
+                .body(output -> _productBulkService.exportProducts(output, format));
+    }
+
+
+    /**
+     * Rebuild the product search index from the database - only accessible by admins
+     * @return ResponseEntity<ApiResponse>
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/rebuild-search-index")
+    public ResponseEntity<ApiResponse> rebuildSearchIndex(){
+        try{
+            _productService.rebuildSearchIndex();
+            return SuccessResponse.handleSuccess("Search index rebuilt successfully", null, HttpStatus.OK.value(),null);
+        } catch (Exception e) {
+            return ErrorResponse.handleError(e);
+        }
+    }
 }
 
 
@@ -115,5 +182,8 @@ public class ProductController {
  * 2. update - POST - http://localhost:9091/api/v1/product/update/{productId}
  * 3. delete - DELETE - http://localhost:9091/api/v1/product/delete/{productId}
  * 4. get-by-id - GET - http://localhost:9091/api/v1/product/get-by-id/{productId}
- * 5. get-all - GET - http://localhost:9091/api/v1/product/get-all {params: name, category}
+ * 5. get-all - GET - http://localhost:9091/api/v1/product/get-all {params: name, category, cursor, size}
+ * 6. import - POST - http://localhost:9091/api/v1/product/import {params: format=csv|ndjson, body: file content}
+ * 7. export - GET - http://localhost:9091/api/v1/product/export {params: format=csv|ndjson}
+ * 8. rebuild-search-index - POST - http://localhost:9091/api/v1/product/rebuild-search-index
  */
\ No newline at end of file
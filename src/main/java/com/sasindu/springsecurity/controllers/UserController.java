@@ -9,6 +9,7 @@ import com.sasindu.springsecurity.entities.AppUser;
 import com.sasindu.springsecurity.helpers.ApiResponse;
 import com.sasindu.springsecurity.helpers.ErrorResponse;
 import com.sasindu.springsecurity.helpers.SuccessResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -58,15 +59,17 @@ public class UserController {
 
 
     /**
-     * Update the password of the authenticated user
+     * Update the password of the authenticated user - the other sessions are logged out,
+     * and the response sets the cookies of a new session for the caller
      *
      * @param request UpdateUserPasswordRequestDto object
+     * @param response HttpServletResponse object
      * @return ResponseEntity<ApiResponse>
      */
     @PutMapping("/update-password/{userId}")
-    public ResponseEntity<ApiResponse> updatePassword(@RequestBody UpdateUserPasswordRequestDto request, @PathVariable Long userId){
+    public ResponseEntity<ApiResponse> updatePassword(@RequestBody UpdateUserPasswordRequestDto request, @PathVariable Long userId, HttpServletResponse response){
         try{
-            _userService.updateUserPassword(request, userId);
+            _userService.updateUserPassword(request, userId, response);
             return SuccessResponse.handleSuccess("User password updated", null, HttpStatus.OK.value(), null);
         } catch (Exception e) {
             return ErrorResponse.handleError(e);
@@ -0,0 +1,21 @@
+package com.sasindu.springsecurity.data;
+
+import com.sasindu.springsecurity.helpers.CategoryCatalogue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CategoryCatalogueInitializer implements ApplicationListener<ApplicationReadyEvent> {
+    private final CategoryCatalogue _categoryCatalogue;
+
+    /**
+     * Load the category catalogue from the database on application startup
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        _categoryCatalogue.reload();
+    }
+}
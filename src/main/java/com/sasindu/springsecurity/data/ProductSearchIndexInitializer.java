@@ -0,0 +1,21 @@
+package com.sasindu.springsecurity.data;
+
+import com.sasindu.springsecurity.abstractions.interfaces.IProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndexInitializer implements ApplicationListener<ApplicationReadyEvent> {
+    private final IProductService _productService;
+
+    /**
+     * Build the product search index from the database on application startup
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        _productService.rebuildSearchIndex();
+    }
+}
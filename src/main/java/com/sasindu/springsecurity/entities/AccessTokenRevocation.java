@@ -0,0 +1,46 @@
+package com.sasindu.springsecurity.entities;
+
+
+import com.sasindu.springsecurity.abstractions.enums.AccessTokenRevocationType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Persisted entry of the access token denylist - either a single token (jti) or all the tokens of a user
+ * issued up to a time, except the token (jti) of the session started with the revocation.
+ * Rows are only needed until the revoked tokens expire, and are purged after that.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "access_token_revocations", indexes = {
+        @Index (name = "idx_access_token_revocations_expires", columnList = "expiresAt")
+})
+public class AccessTokenRevocation {
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column (nullable = false, length = 10)
+    private AccessTokenRevocationType type;
+
+    // TOKEN: the revoked token, USER: the exempted token, if any
+    @Column (length = 32)
+    private String jti;
+
+    private Long userId;
+
+    private LocalDateTime revokedBefore;
+
+    @Column (nullable = false)
+    private LocalDateTime expiresAt;
+}
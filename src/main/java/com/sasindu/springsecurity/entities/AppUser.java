@@ -22,7 +22,7 @@ import java.util.List;
 @Table (name = "users")
 public class AppUser implements UserDetails {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     private String firstName;
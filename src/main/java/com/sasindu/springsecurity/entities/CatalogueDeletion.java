@@ -0,0 +1,31 @@
+package com.sasindu.springsecurity.entities;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Record of a deleted product or category, read by the other instances to remove it from their search index.
+ * The id is time ordered, so the deletions since a time are read by id; rows are purged after a day.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "catalogue_deletions")
+public class CatalogueDeletion {
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    // Id of the deleted product, null for a category
+    private Long productId;
+
+    // Id of the deleted category, null for a product
+    private Long categoryId;
+}
@@ -0,0 +1,33 @@
+package com.sasindu.springsecurity.entities;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+
+/**
+ * Single row holding the version of the product and category catalogue, shared by all the instances.
+ * The version is incremented on every catalogue change and validates the cached catalogue responses.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "catalogue_state")
+public class CatalogueState {
+    public static final long ROW_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column (nullable = false)
+    private long version;
+
+    // Time of the last change, in epoch milliseconds
+    @Column (nullable = false)
+    private long lastModified;
+}
@@ -20,7 +20,7 @@ import java.util.Set;
 public class Category {
 
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column (nullable = false, unique = true)
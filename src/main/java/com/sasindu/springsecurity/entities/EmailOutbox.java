@@ -0,0 +1,89 @@
+package com.sasindu.springsecurity.entities;
+
+
+import com.sasindu.springsecurity.abstractions.enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "email_outbox", indexes = {
+        @Index (name = "idx_email_outbox_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+public class EmailOutbox {
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column (nullable = false, length = 200)
+    private String toEmail;
+
+    @Column (nullable = false)
+    private String subject;
+
+    @Column (nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String htmlContent;
+
+    // Plain VARCHAR instead of a MySQL ENUM column, so that new statuses do not need a schema change
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column (nullable = false, length = 20)
+    private EmailOutboxStatus status;
+
+    private int attempts;
+
+    @Column (nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column (length = 1000)
+    private String lastError;
+
+    @Column (nullable = false)
+    private LocalDateTime createdAt;
+
+
+    /**
+     * Creates a pending email, due immediately
+     * @param toEmail - Email address of the recipient
+     * @param subject - Subject of the email
+     * @param htmlContent - HTML body of the email
+     */
+    public EmailOutbox(String toEmail, String subject, String htmlContent) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.htmlContent = htmlContent;
+        this.status = EmailOutboxStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+
+    /**
+     * Records a failed delivery attempt - releases the claim and schedules the next attempt with exponential backoff,
+     * or moves the email to the dead letter state once the max attempts are reached
+     * @param error - Error message of the failed attempt
+     * @param maxAttempts - Max number of delivery attempts
+     * @param baseDelaySeconds - Delay before the first retry, doubled on each attempt
+     */
+    public void recordFailure(String error, int maxAttempts, long baseDelaySeconds) {
+        this.attempts++;
+        this.lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (this.attempts >= maxAttempts) {
+            this.status = EmailOutboxStatus.DEAD;
+            return;
+        }
+        long delaySeconds = baseDelaySeconds << Math.min(this.attempts - 1, 16);
+        this.status = EmailOutboxStatus.PENDING;
+        this.nextAttemptAt = LocalDateTime.now().plusSeconds(delaySeconds);
+    }
+}
@@ -7,24 +7,41 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table (name = "products")
+@Table (name = "products", indexes = {
+        @Index (name = "idx_products_updated_at", columnList = "updatedAt")
+})
 public class Product {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column (nullable = false, length = 200)
     private String name;
 
-    @ManyToOne
+    @ManyToOne (fetch = FetchType.LAZY)
     @JoinColumn (name = "category_id", nullable = false)
     private Category category;
 
+    // Time of the last change, read by the other instances to refresh their search index
+    private LocalDateTime updatedAt;
+
+
+    /**
+     * Record the time of the change on every insert and update
+     */
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
 
     /**
      * Converts the product entity to a product response dto
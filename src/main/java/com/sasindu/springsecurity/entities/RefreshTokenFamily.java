@@ -0,0 +1,60 @@
+package com.sasindu.springsecurity.entities;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * A refresh token family - one login session. Only the id (jti) of the latest refresh token of the family
+ * is stored; presenting any older token of the family means it was stolen or replayed, and revokes the family.
+ * The previous jti and the time of the last rotation are kept to tolerate concurrent refreshes of the session.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table (name = "refresh_token_families", indexes = {
+        @Index (name = "idx_refresh_token_families_user", columnList = "userId"),
+        @Index (name = "idx_refresh_token_families_expires", columnList = "expiresAt")
+})
+public class RefreshTokenFamily {
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column (nullable = false)
+    private Long userId;
+
+    @Column (nullable = false, length = 32)
+    private String currentJti;
+
+    @Column (length = 32)
+    private String previousJti;
+
+    private LocalDateTime rotatedAt;
+
+    @Column (nullable = false)
+    private LocalDateTime expiresAt;
+
+    private boolean revoked;
+
+
+    /**
+     * Creates a family for a new session
+     * @param userId - ID of the user
+     * @param currentJti - ID of the first refresh token
+     * @param expiresAt - Expiry of the first refresh token
+     */
+    public RefreshTokenFamily(Long userId, String currentJti, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.currentJti = currentJti;
+        this.expiresAt = expiresAt;
+    }
+}
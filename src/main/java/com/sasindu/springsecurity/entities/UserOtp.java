@@ -15,9 +15,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table (name = "user_otp", indexes = {
+        @Index (name = "idx_user_otp_user_type", columnList = "user_id, type"),
+        @Index (name = "idx_user_otp_expires", columnList = "expires")
+})
 public class UserOtp {
     @Id
-    @GeneratedValue (strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -33,15 +37,6 @@ public class UserOtp {
     private AppUser user;
 
 
-    /**
-     * Checks if the OTP is correct
-     * @param otp - OTP to check
-     * @return boolean
-     */
-    public boolean isOtpCorrect(String otp) {
-        return !this.otp.equals(otp);
-    }
-
     /**
      * Checks if the OTP is expired
      * @return boolean
@@ -0,0 +1,15 @@
+package com.sasindu.springsecurity.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    private static final String DEFAULT_MESSAGE = "Service is busy, please try again later";
+
+    // Constructor with a custom message
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    // Constructor with the default message
+    public ServiceUnavailableException() {
+        super(DEFAULT_MESSAGE);
+    }
+}
@@ -0,0 +1,201 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.constants.ApplicationConstants;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+
+/**
+ * Conditional GET support for the public catalogue endpoints.
+ * The ETag is derived from the catalogue version and the request URL, so a request carrying a matching
+ * If-None-Match (or an If-Modified-Since not older than the last change) gets a 304 without reaching the
+ * controller, the product queries or the JSON serializer. Cache-Control lets CDNs absorb the remaining traffic.
+ * The validators and Cache-Control are only sent with successful responses, so errors are never cached.
+ */
+@Component
+public class CatalogueConditionalGetFilter extends OncePerRequestFilter {
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final CatalogueVersion _catalogueVersion;
+    private final String cacheControl;
+
+
+    public CatalogueConditionalGetFilter(
+            CatalogueVersion catalogueVersion,
+            @Value("${catalogue.cache.max.age.seconds:60}") long maxAgeSeconds
+    ) {
+        this._catalogueVersion = catalogueVersion;
+        this.cacheControl = "public, max-age=" + maxAgeSeconds;
+    }
+
+
+    /**
+     * Only GET requests to the public catalogue endpoints are handled
+     *
+     * @param request The request object
+     * @return true if the request is not a catalogue GET
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return Arrays.stream(ApplicationConstants.PUBLIC_CATALOGUE_URLS).noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+
+    /**
+     * Answer 304 if the client already has the current representation, otherwise continue and set the validators
+     * if the response is successful
+     *
+     * @param request The request object
+     * @param response The response object
+     * @param filterChain The filter chain object
+     * @throws ServletException If an error occurs
+     * @throws IOException If an error occurs
+     */
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        CatalogueVersion.State state = _catalogueVersion.current();
+        long lastModified = state.lastModified() / 1000 * 1000;
+        String etag = computeEtag(request, state.version());
+
+        if (isNotModified(request, etag, lastModified)) {
+            setValidators(response, etag, lastModified);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ValidatedResponse validatedResponse = new ValidatedResponse(response, etag, lastModified);
+        filterChain.doFilter(request, validatedResponse);
+        validatedResponse.applyValidators();
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Set the validators and Cache-Control of a response
+     *
+     * @param response The response object
+     * @param etag The current ETag
+     * @param lastModified The last modified time in epoch milliseconds, truncated to seconds
+     */
+    private void setValidators(HttpServletResponse response, String etag, long lastModified) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+    }
+
+
+    /**
+     * Compute the strong ETag of the request - catalogue version plus a hash of the URL and query string
+     *
+     * @param request The request object
+     * @param version The catalogue version
+     * @return The quoted ETag
+     */
+    private static String computeEtag(HttpServletRequest request, long version) {
+        String url = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        return "\"" + Long.toHexString(version) + "-" + Integer.toHexString(url.hashCode()) + "\"";
+    }
+
+
+    /**
+     * Check the conditional request headers - If-None-Match takes precedence over If-Modified-Since
+     *
+     * @param request The request object
+     * @param etag The current ETag
+     * @param lastModified The last modified time in epoch milliseconds, truncated to seconds
+     * @return true if the client representation is current
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.trim().equals("*")
+                    || Arrays.stream(ifNoneMatch.split(",")).map(String::trim).anyMatch(etag::equals);
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Response that gets the validators when it is committed with a successful status - headers can no longer
+     * be added once the body starts being written, so they are set when the body is first accessed
+     */
+    private class ValidatedResponse extends HttpServletResponseWrapper {
+        private final String etag;
+        private final long lastModified;
+        private boolean isApplied;
+
+
+        private ValidatedResponse(HttpServletResponse response, String etag, long lastModified) {
+            super(response);
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            applyValidators();
+            return super.getOutputStream();
+        }
+
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            applyValidators();
+            return super.getWriter();
+        }
+
+
+        @Override
+        public void flushBuffer() throws IOException {
+            applyValidators();
+            super.flushBuffer();
+        }
+
+
+        /**
+         * Set the validators once, if the status is successful and the response is not committed yet
+         */
+        private void applyValidators() {
+            if (isApplied || isCommitted()) {
+                return;
+            }
+            isApplied = true;
+            int status = getStatus();
+            if (status >= 200 && status < 300) {
+                setValidators((HttpServletResponse) getResponse(), etag, lastModified);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.entities.CatalogueState;
+import com.sasindu.springsecurity.repository.ICatalogueStateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Version of the product and category catalogue, incremented on every change.
+ * Used to compute ETags of the public catalogue endpoints. The version is stored in the catalogue_state row,
+ * so all the instances validate against the same state; each instance reads it at most once per poll interval,
+ * so a change made on another instance is seen within that interval, and at once on the instance that made it.
+ * The version starts at the time the row is created, so that versions are not reused if the row is recreated.
+ */
+@Component
+public class CatalogueVersion {
+    private final ICatalogueStateRepository _catalogueStateRepository;
+    private final long pollIntervalMillis;
+
+    private volatile CachedState cached;
+
+
+    public CatalogueVersion(
+            ICatalogueStateRepository catalogueStateRepository,
+            @Value("${catalogue.version.poll.interval.ms:1000}") long pollIntervalMillis
+    ) {
+        this._catalogueStateRepository = catalogueStateRepository;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+
+    /**
+     * Mark the catalogue as changed - must be called after every product or category change
+     */
+    public void increment() {
+        long now = System.currentTimeMillis();
+        if (_catalogueStateRepository.increment(CatalogueState.ROW_ID, now) == 0) {
+            createRow(now);
+        }
+        read();
+    }
+
+
+    /**
+     * Get the current version and last modified time
+     * @return State
+     */
+    public State current() {
+        CachedState current = this.cached;
+        if (current == null || System.currentTimeMillis() - current.readAt() >= pollIntervalMillis) {
+            return read();
+        }
+        return current.state();
+    }
+
+
+    /**
+     * Version of the catalogue and the time of its last change, in epoch milliseconds
+     * @param version long
+     * @param lastModified long
+     */
+    public record State(long version, long lastModified) {
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Read the state from the database and cache it
+     * @return State
+     */
+    private State read() {
+        long readAt = System.currentTimeMillis();
+        CatalogueState row = _catalogueStateRepository.findById(CatalogueState.ROW_ID)
+                .orElseGet(() -> createRow(readAt));
+        State state = new State(row.getVersion(), row.getLastModified());
+        this.cached = new CachedState(state, readAt);
+        return state;
+    }
+
+
+    /**
+     * Create the catalogue state row, or read it if another instance created it first
+     * @param now long
+     * @return CatalogueState
+     */
+    private CatalogueState createRow(long now) {
+        try {
+            _catalogueStateRepository.create(CatalogueState.ROW_ID, now);
+            return new CatalogueState(CatalogueState.ROW_ID, now, now);
+        } catch (DataIntegrityViolationException e) {
+            return _catalogueStateRepository.findById(CatalogueState.ROW_ID).orElseThrow(() -> e);
+        }
+    }
+
+
+    /**
+     * State and the time it was read from the database
+     */
+    private record CachedState(State state, long readAt) {
+    }
+}
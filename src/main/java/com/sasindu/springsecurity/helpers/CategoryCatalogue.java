@@ -0,0 +1,225 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.entities.Category;
+import com.sasindu.springsecurity.repository.ICategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Fully materialized in-memory copy of the categories table, indexed by id and by lowercase name.
+ * Readers get a lock-free immutable snapshot; writers build a new snapshot and publish it (copy-on-write),
+ * which is cheap because categories change rarely. The catalogue is loaded on first use and must be
+ * updated by CategoryService whenever a category is created, updated or deleted.
+ * Each instance has its own catalogue, so changes made by the other instances are picked up by reading
+ * through to the database when a lookup misses, and by reloading the whole catalogue periodically -
+ * a category deleted or renamed elsewhere stays visible here until the next reload.
+ * Writers are serialized with a ReentrantLock rather than synchronized, since reload() queries the database
+ * and a blocking call inside a monitor pins the carrier of a virtual thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryCatalogue {
+    private final ICategoryRepository _categoryRepository;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+
+    /**
+     * Reload the whole catalogue from the database
+     */
+    public void reload() {
+        writeLock.lock();
+        try {
+            List<CatalogueEntry> entries = _categoryRepository.findAll()
+                    .stream()
+                    .map(category -> new CatalogueEntry(category.getId(), category.getName()))
+                    .toList();
+            this.snapshot = Snapshot.of(entries);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+
+    /**
+     * Reload the catalogue periodically to pick up the categories deleted or renamed by the other instances.
+     * Nothing is loaded until the catalogue is first used
+     */
+    @Scheduled(fixedDelayString = "${category.catalogue.refresh.interval.ms:60000}",
+            initialDelayString = "${category.catalogue.refresh.interval.ms:60000}")
+    public void refresh() {
+        if (this.snapshot != null) {
+            reload();
+        }
+    }
+
+
+    /**
+     * Find a category by id, reading through to the database if it is not in the catalogue
+     * @param id Long
+     * @return Category - a new detached instance, null if not found
+     */
+    public Category findById(Long id) {
+        CatalogueEntry entry = current().byId().get(id);
+        if (entry == null) {
+            return _categoryRepository.findById(id).map(this::putAndDetach).orElse(null);
+        }
+        return entry.toCategory();
+    }
+
+
+    /**
+     * Find a category by name, case-insensitive, reading through to the database if it is not in the catalogue
+     * @param name String
+     * @return Category - a new detached instance, null if not found
+     */
+    public Category findByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        CatalogueEntry entry = current().byName().get(name.toLowerCase());
+        if (entry == null) {
+            Category category = _categoryRepository.findByName(name.toLowerCase());
+            return category == null ? null : putAndDetach(category);
+        }
+        return entry.toCategory();
+    }
+
+
+    /**
+     * Check if a category exists by name, case-insensitive, reading through to the database if it is not in the catalogue
+     * @param name String
+     * @return boolean
+     */
+    public boolean existsByName(String name) {
+        return findByName(name) != null;
+    }
+
+
+    /**
+     * Find all categories, optionally by name containing the search string, ordered by id
+     * @param search String - null or empty for all categories
+     * @return List<Category> - new detached instances
+     */
+    public List<Category> findAll(String search) {
+        String normalizedSearch = search == null ? "" : search.toLowerCase();
+        return current().ordered()
+                .stream()
+                .filter(entry -> entry.name().toLowerCase().contains(normalizedSearch))
+                .map(CatalogueEntry::toCategory)
+                .toList();
+    }
+
+
+    /**
+     * Add or replace a category in the catalogue
+     * @param category Category - saved category
+     */
+    public void put(Category category) {
+        writeLock.lock();
+        try {
+            Map<Long, CatalogueEntry> byId = new HashMap<>(current().byId());
+            byId.put(category.getId(), new CatalogueEntry(category.getId(), category.getName()));
+            this.snapshot = Snapshot.of(byId.values());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+
+    /**
+     * Remove a category from the catalogue
+     * @param id Long
+     */
+    public void remove(Long id) {
+        writeLock.lock();
+        try {
+            Map<Long, CatalogueEntry> byId = new HashMap<>(current().byId());
+            byId.remove(id);
+            this.snapshot = Snapshot.of(byId.values());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Add a category read from the database to the catalogue
+     * @param category Category - managed entity
+     * @return Category - a new detached instance
+     */
+    private Category putAndDetach(Category category) {
+        put(category);
+        return new CatalogueEntry(category.getId(), category.getName()).toCategory();
+    }
+
+
+    /**
+     * Get the current snapshot, loading the catalogue on first use
+     * @return Snapshot
+     */
+    private Snapshot current() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            writeLock.lock();
+            try {
+                if (this.snapshot == null) {
+                    reload();
+                }
+                current = this.snapshot;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return current;
+    }
+
+
+    /**
+     * Immutable category as stored in the catalogue
+     */
+    private record CatalogueEntry(Long id, String name) {
+
+        /**
+         * Create a detached category entity from the entry
+         * @return Category
+         */
+        private Category toCategory() {
+            return new Category(id, name, new HashSet<>());
+        }
+    }
+
+
+    /**
+     * Immutable view of the whole catalogue
+     */
+    private record Snapshot(Map<Long, CatalogueEntry> byId, Map<String, CatalogueEntry> byName, List<CatalogueEntry> ordered) {
+
+        /**
+         * Build the indexes of a snapshot
+         * @param entries Collection<CatalogueEntry>
+         * @return Snapshot
+         */
+        private static Snapshot of(Collection<CatalogueEntry> entries) {
+            Map<Long, CatalogueEntry> byId = new HashMap<>();
+            Map<String, CatalogueEntry> byName = new HashMap<>();
+            for (CatalogueEntry entry : entries) {
+                byId.put(entry.id(), entry);
+                byName.put(entry.name().toLowerCase(), entry);
+            }
+            List<CatalogueEntry> ordered = entries.stream()
+                    .sorted(Comparator.comparing(CatalogueEntry::id))
+                    .toList();
+            return new Snapshot(Map.copyOf(byId), Map.copyOf(byName), ordered);
+        }
+    }
+}
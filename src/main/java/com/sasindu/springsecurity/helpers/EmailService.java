@@ -3,15 +3,25 @@ package com.sasindu.springsecurity.helpers;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
 @RequiredArgsConstructor
 @Service
 public class EmailService {
     private final JavaMailSender _mailSender;
 
+    // Batch metrics
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+
     @Value("${spring.mail.username}")
     private String fromEmail;
 
@@ -23,17 +33,128 @@ public class EmailService {
      */
     public void sendHtmlEmail(String to, String subject, String htmlContent) {
         try {
-            MimeMessage message = _mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            _mailSender.send(createHtmlMessage(new HtmlEmail(to, subject, htmlContent)));
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
 
-            helper.setFrom(this.fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
+    /**
+     * Send a batch of HTML emails over a single SMTP connection
+     * @param emails List<HtmlEmail>
+     * @return Map of the index of each failed email to its failure, empty if all emails were sent
+     */
+    public Map<Integer, Exception> sendHtmlEmails(List<HtmlEmail> emails) {
+        long start = System.nanoTime();
+        Map<Integer, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Integer> indexes = new IdentityHashMap<>();
+
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                indexes.put(createHtmlMessage(emails.get(i)), i);
+            } catch (Exception e) {
+                failures.put(i, e);
+            }
+        }
 
-            _mailSender.send(message);
+        try {
+            if (!indexes.isEmpty()) {
+                _mailSender.send(indexes.keySet().toArray(MimeMessage[]::new));
+            }
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                indexes.values().forEach(i -> failures.put(i, e));
+            }
+            e.getFailedMessages().forEach((message, ex) -> {
+                Integer i = indexes.get(message);
+                if (i != null) {
+                    failures.put(i, ex);
+                }
+            });
         } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
+            indexes.values().forEach(i -> failures.put(i, e));
         }
+
+        batchCount.increment();
+        batchNanos.add(System.nanoTime() - start);
+        sentCount.add(emails.size() - failures.size());
+        failedCount.add(failures.size());
+        return failures;
+    }
+
+
+    /**
+     * Get the number of batches sent
+     * @return long
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+
+    /**
+     * Get the number of emails sent successfully
+     * @return long
+     */
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+
+    /**
+     * Get the number of emails that failed to send
+     * @return long
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+
+    /**
+     * Get the average latency of a batch in milliseconds
+     * @return double
+     */
+    public double getAverageBatchLatencyMillis() {
+        long batches = batchCount.sum();
+        return batches == 0 ? 0 : batchNanos.sum() / 1_000_000.0 / batches;
+    }
+
+
+    /**
+     * Get the throughput while sending, in emails per second
+     * @return double
+     */
+    public double getThroughputPerSecond() {
+        long nanos = batchNanos.sum();
+        return nanos == 0 ? 0 : sentCount.sum() * 1_000_000_000.0 / nanos;
+    }
+
+
+    /**
+     * Create the MIME message of an HTML email
+     * @param email HtmlEmail
+     * @return MimeMessage
+     * @throws Exception If the message cannot be created
+     */
+    private MimeMessage createHtmlMessage(HtmlEmail email) throws Exception {
+        MimeMessage message = _mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+
+        helper.setFrom(this.fromEmail);
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
+        helper.setText(email.htmlContent(), true);
+        return message;
+    }
+
+
+    /**
+     * An HTML email to be sent
+     * @param to String
+     * @param subject String
+     * @param htmlContent String
+     */
+    public record HtmlEmail(String to, String subject, String htmlContent) {
     }
 }
@@ -0,0 +1,111 @@
+package com.sasindu.springsecurity.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An email template compiled once into a list of static text chunks and parameter slots.
+ * Placeholders are written as {{name}} in the template source.
+ * Rendering appends into a reusable per-thread buffer, so the only allocation left per render is the resulting String.
+ */
+public final class EmailTemplate {
+    private static final String PLACEHOLDER_START = "{{";
+    private static final String PLACEHOLDER_END = "}}";
+    // Buffers grown past this size are not kept, so one large email does not pin the memory of a thread
+    private static final int MAX_RETAINED_BUFFER_LENGTH = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(8 * 1024));
+
+    // Static chunks and slots alternate: chunks[0] slots[0] chunks[1] ... slots[n-1] chunks[n]
+    private final String[] chunks;
+    private final String[] slots;
+    private final int staticLength;
+
+
+    private EmailTemplate(String[] chunks, String[] slots) {
+        this.chunks = chunks;
+        this.slots = slots;
+        int length = 0;
+        for (String chunk : chunks) {
+            length += chunk.length();
+        }
+        this.staticLength = length;
+    }
+
+
+    /**
+     * Parse the template source into chunks and slots
+     * @param source String
+     * @return EmailTemplate
+     */
+    public static EmailTemplate compile(String source) {
+        List<String> chunks = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int start = source.indexOf(PLACEHOLDER_START, position);
+            int end = start < 0 ? -1 : source.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length());
+            if (end < 0) {
+                chunks.add(source.substring(position));
+                break;
+            }
+            chunks.add(source.substring(position, start));
+            slots.add(source.substring(start + PLACEHOLDER_START.length(), end).trim());
+            position = end + PLACEHOLDER_END.length();
+        }
+
+        return new EmailTemplate(chunks.toArray(String[]::new), slots.toArray(String[]::new));
+    }
+
+
+    /**
+     * Render the template - missing parameters are rendered as empty text
+     * @param params Map<String, String>
+     * @return String
+     */
+    public String render(Map<String, String> params) {
+        // Virtual threads are not reused, a per-thread buffer would be allocated for every render anyway
+        if (Thread.currentThread().isVirtual()) {
+            StringBuilder builder = new StringBuilder(staticLength + 256);
+            renderTo(params, builder);
+            return builder.toString();
+        }
+
+        StringBuilder buffer = BUFFERS.get();
+        buffer.setLength(0);
+        try {
+            renderTo(params, buffer);
+            return buffer.toString();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_LENGTH) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Render the template at the end of the given buffer - missing parameters are rendered as empty text
+     * @param params Map<String, String>
+     * @param buffer StringBuilder - grown once to the rendered length if needed
+     */
+    public void renderTo(Map<String, String> params, StringBuilder buffer) {
+        int length = staticLength;
+        for (String slot : slots) {
+            String value = params.get(slot);
+            length += value == null ? 0 : value.length();
+        }
+        buffer.ensureCapacity(buffer.length() + length);
+
+        buffer.append(chunks[0]);
+        for (int i = 0; i < slots.length; i++) {
+            String value = params.get(slots[i]);
+            if (value != null) {
+                buffer.append(value);
+            }
+            buffer.append(chunks[i + 1]);
+        }
+    }
+}
@@ -40,6 +40,11 @@ public class ErrorResponse {
             return handleAllExceptions(HttpStatus.CONFLICT, e);
         }
 
+        //? Service Unavailable Exception - Return 503
+        if (e instanceof ServiceUnavailableException) {
+            return handleAllExceptions(HttpStatus.SERVICE_UNAVAILABLE, e);
+        }
+
         //? Bad credentials Exception - Return 401
         if (e instanceof BadCredentialsException) {
             return handleAllExceptions(HttpStatus.UNAUTHORIZED, e);
@@ -1,11 +1,14 @@
 package com.sasindu.springsecurity.helpers;
 
+import com.sasindu.springsecurity.exceptions.BadRequestException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 
@@ -14,6 +17,7 @@ public class HelperUtilMethods {
     private static final String CHAR_POOL_DIGITS = "0123456789";
     private static final int OTP_LENGTH = 6;
     private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String CURSOR_SEPARATOR = ":";
 
     /**
      * This public static method is used to convert a hex string to a byte array
@@ -65,6 +69,116 @@ public class HelperUtilMethods {
         return null;
     }
 
+    /**
+     * This method is used to encode the keyset of the last item of a page into an opaque cursor
+     * @param kind The kind of the cursor, a cursor can only be decoded as the kind it was created with
+     * @param keys The keyset of the last item, not negative
+     * @return The cursor
+     */
+    public static String encodeCursor(String kind, long... keys) {
+        StringBuilder cursor = new StringBuilder(kind);
+        for (long key : keys) {
+            cursor.append(CURSOR_SEPARATOR).append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * This method is used to get the kind of a cursor created by encodeCursor
+     * @param cursor The cursor, may be null
+     * @return The kind of the cursor, null if no cursor is given
+     * @throws BadRequestException If the cursor is invalid
+     */
+    public static String cursorKind(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        return decodeCursorParts(cursor)[0];
+    }
+
+
+    /**
+     * This method is used to decode a cursor created by encodeCursor
+     * @param cursor The cursor, may be null
+     * @param kind The expected kind of the cursor
+     * @param maxValues The max value of each key of the keyset
+     * @return The keyset of the last item of the previous page, null if no cursor is given
+     * @throws BadRequestException If the cursor is invalid, of another kind, or a key is negative or out of range
+     */
+    public static long[] decodeCursor(String cursor, String kind, long... maxValues) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = decodeCursorParts(cursor);
+        if (!parts[0].equals(kind) || parts.length != maxValues.length + 1) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        long[] keys = new long[maxValues.length];
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = Long.parseLong(parts[i + 1]);
+                if (keys[i] < 0 || keys[i] > maxValues[i]) {
+                    throw new BadRequestException("Invalid cursor");
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return keys;
+    }
+
+
+    /**
+     * This method is used to split a CSV line into its fields - supports quoted fields with "" escapes
+     * @param line The CSV line
+     * @return The fields
+     */
+    public static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+
+    /**
+     * This method is used to format a value as a CSV field - quoted only when needed
+     * @param value The value
+     * @return The CSV field
+     */
+    public static String toCsvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+
     /**
      * This method is used to generate an OTP
      * @return The generated OTP
@@ -95,4 +209,22 @@ public class HelperUtilMethods {
 
         return otp.toString();
     }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * This method is used to split a cursor into its kind and its keys
+     * @param cursor The cursor
+     * @return The kind followed by the keys
+     * @throws BadRequestException If the cursor is not valid base64
+     */
+    private static String[] decodeCursorParts(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
 }
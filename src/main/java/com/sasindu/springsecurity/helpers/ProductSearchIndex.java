@@ -0,0 +1,496 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+
+/**
+ * In-memory trigram index of the product names, used to search products without LIKE '%...%' table scans.
+ * The posting list of each trigram is a sorted array of product ids, about 8 bytes per trigram of a name.
+ * Queries shorter than a trigram would match most of the products and are not indexed: search() scans all
+ * the products for them, and ProductService reads them from the database (see isIndexedQuery).
+ * Supports substring and prefix matches ranked by exact, prefix, word prefix and substring match.
+ * Results are paged by keyset on their ranking position, and only the requested page is selected (bounded top-k),
+ * so a page costs the same whatever the number of matches and its position.
+ * The index is kept in sync by ProductService and CategoryService, and is built from the database on startup.
+ * Until the first build completes isReady() is false and searches must go to the database.
+ * Each instance has its own index, so the changes made by the other instances are applied by a periodic refresh;
+ * the index records the catalogue version it has caught up with, and searches must go to the database while
+ * the index is behind the current version (see isSyncedWith).
+ * A rebuild fills a new index while the current one keeps serving searches; the changes made meanwhile are
+ * applied to both and replayed on the new index before it replaces the current one, so none is lost.
+ */
+@Component
+public class ProductSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    // Ranking order: best score first, then shortest name, then oldest product
+    private static final Comparator<Position> RANKING = Comparator.comparingInt(Position::score).reversed()
+            .thenComparingInt(Position::nameLength)
+            .thenComparingLong(Position::id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    private IndexData rebuilding;
+    private final List<Consumer<IndexData>> rebuildJournal = new ArrayList<>();
+    private volatile boolean isReady;
+    private volatile long syncedVersion = Long.MIN_VALUE;
+
+
+    /**
+     * Add or replace a product in the index
+     * @param id Long
+     * @param name String
+     * @param categoryId Long
+     * @param categoryName String
+     */
+    public void index(Long id, String name, Long categoryId, String categoryName) {
+        IndexedProduct product = new IndexedProduct(id, name, name.toLowerCase(), categoryId, categoryName);
+        apply(index -> index.put(product));
+    }
+
+
+    /**
+     * Remove a product from the index
+     * @param id Long
+     */
+    public void remove(Long id) {
+        apply(index -> index.remove(id));
+    }
+
+
+    /**
+     * Rename the category of all the indexed products of a category
+     * @param categoryId Long
+     * @param categoryName String
+     */
+    public void renameCategory(Long categoryId, String categoryName) {
+        apply(index -> index.renameCategory(categoryId, categoryName));
+    }
+
+
+    /**
+     * Remove all the products of a category from the index
+     * @param categoryId Long
+     */
+    public void removeCategory(Long categoryId) {
+        apply(index -> index.removeCategory(categoryId));
+    }
+
+
+    /**
+     * Rename the categories of the indexed products whose category name differs from the given one
+     * @param categoryNames Map<Long, String> - name of each category by id, the other categories are left as they are
+     */
+    public void renameCategories(Map<Long, String> categoryNames) {
+        Map<Long, String> names = Map.copyOf(categoryNames);
+        apply(index -> index.renameCategories(names));
+    }
+
+
+    /**
+     * Start a rebuild - the products read from the database are added with addToRebuild, and the current
+     * index keeps serving searches until completeRebuild
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding != null) {
+                throw new IllegalStateException("The search index is already being rebuilt");
+            }
+            rebuilding = new IndexData();
+            rebuildJournal.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Add a product read from the database to the index being rebuilt
+     * @param id Long
+     * @param name String
+     * @param categoryId Long
+     * @param categoryName String
+     */
+    public void addToRebuild(Long id, String name, Long categoryId, String categoryName) {
+        IndexedProduct product = new IndexedProduct(id, name, name.toLowerCase(), categoryId, categoryName);
+        lock.writeLock().lock();
+        try {
+            if (rebuilding == null) {
+                throw new IllegalStateException("The search index is not being rebuilt");
+            }
+            rebuilding.put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Replay the changes made during the rebuild on the rebuilt index, replace the current index with it and mark the index as ready
+     */
+    public void completeRebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding == null) {
+                throw new IllegalStateException("The search index is not being rebuilt");
+            }
+            // A product read from a page before it was changed or deleted gets its latest state back
+            rebuildJournal.forEach(change -> change.accept(rebuilding));
+            rebuilding.grams.values().forEach(Postings::trim);
+            data = rebuilding;
+            rebuilding = null;
+            rebuildJournal.clear();
+            isReady = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Discard a failed rebuild - the current index is kept
+     */
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = null;
+            rebuildJournal.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Check if the index is complete and can serve searches
+     * @return boolean
+     */
+    public boolean isReady() {
+        return isReady;
+    }
+
+
+    /**
+     * Record that the index contains all the changes up to a catalogue version
+     * @param version long - catalogue version read before the changes were read from the database
+     */
+    public void markSynced(long version) {
+        lock.writeLock().lock();
+        try {
+            syncedVersion = Math.max(syncedVersion, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Check if the index is ready and contains all the changes up to a catalogue version
+     * @param version long - current catalogue version
+     * @return boolean
+     */
+    public boolean isSyncedWith(long version) {
+        return isReady && syncedVersion >= version;
+    }
+
+
+    /**
+     * Check if a query is long enough to be looked up by trigram
+     * @param query String
+     * @return boolean
+     */
+    public static boolean isIndexedQuery(String query) {
+        return query.length() >= GRAM_LENGTH;
+    }
+
+
+    /**
+     * Search the products whose name contains the query, ranked by relevance
+     * @param query String - searched in the product name, case-insensitive
+     * @param category String - optional, the category name must contain it
+     * @param after Position - position of the last result of the previous page, null for the first page
+     * @param limit int - max number of results to return
+     * @return List<SearchHit> - in ranking order
+     */
+    public List<SearchHit> search(String query, String category, Position after, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String normalizedQuery = query.toLowerCase();
+        String normalizedCategory = category == null ? null : category.toLowerCase();
+
+        // Bounded heap of the best results, its head is the worst of them
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, Comparator.comparing(SearchHit::position, RANKING.reversed()));
+        lock.readLock().lock();
+        try {
+            for (IndexedProduct product : data.candidates(normalizedQuery)) {
+                int score = score(product.normalizedName(), normalizedQuery);
+                if (score == 0) {
+                    continue;
+                }
+                Position position = new Position(score, product.name().length(), product.id());
+                if (after != null && RANKING.compare(position, after) <= 0) {
+                    continue;
+                }
+                if (best.size() == limit && RANKING.compare(position, best.peek().position()) >= 0) {
+                    continue;
+                }
+                if (normalizedCategory != null && !product.categoryName().toLowerCase().contains(normalizedCategory)) {
+                    continue;
+                }
+                best.add(new SearchHit(product.toProductResponse(), position));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SearchHit> results = new ArrayList<>(best);
+        results.sort(Comparator.comparing(SearchHit::position, RANKING));
+        return results;
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Apply a change to the index, and record it for the index being rebuilt
+     * @param change Consumer<IndexData>
+     */
+    private void apply(Consumer<IndexData> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(data);
+            if (rebuilding != null) {
+                rebuildJournal.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Score a product name against the query - 0 if the name does not contain the query
+     * @param name String - normalized name
+     * @param query String - normalized query
+     * @return int
+     */
+    private static int score(String name, String query) {
+        if (name.equals(query)) {
+            return 4;
+        }
+        if (name.startsWith(query)) {
+            return 3;
+        }
+        int index = name.indexOf(query);
+        if (index < 0) {
+            return 0;
+        }
+        return Character.isLetterOrDigit(name.charAt(index - 1)) ? 1 : 2;
+    }
+
+
+    /**
+     * Get the distinct grams of a given length of a text
+     * @param text String - normalized text
+     * @param length int
+     * @return Set<String>
+     */
+    private static Set<String> gramsOf(String text, int length) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            result.add(text.substring(i, i + length));
+        }
+        return result;
+    }
+
+
+    /**
+     * Ranking position of a search result, used as the keyset of the next page
+     * @param score int - 4 exact, 3 prefix, 2 word prefix, 1 substring match
+     * @param nameLength int - length of the product name
+     * @param id long - id of the product
+     */
+    public record Position(int score, int nameLength, long id) {
+    }
+
+
+    /**
+     * A search result and its ranking position
+     * @param product ProductResponseDto
+     * @param position Position
+     */
+    public record SearchHit(ProductResponseDto product, Position position) {
+    }
+
+
+    /**
+     * The products and the posting lists of their trigrams - guarded by the lock of the index
+     */
+    private static class IndexData {
+        private final Map<Long, IndexedProduct> products = new HashMap<>();
+        private final Map<String, Postings> grams = new HashMap<>();
+
+
+        private void put(IndexedProduct product) {
+            remove(product.id());
+            products.put(product.id(), product);
+            for (String gram : gramsOf(product.normalizedName(), GRAM_LENGTH)) {
+                grams.computeIfAbsent(gram, g -> new Postings()).add(product.id());
+            }
+        }
+
+
+        private void remove(Long id) {
+            IndexedProduct removed = products.remove(id);
+            if (removed == null) {
+                return;
+            }
+            for (String gram : gramsOf(removed.normalizedName(), GRAM_LENGTH)) {
+                Postings ids = grams.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.size == 0) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+
+
+        private void renameCategory(Long categoryId, String categoryName) {
+            products.replaceAll((id, product) -> Objects.equals(product.categoryId(), categoryId)
+                    ? new IndexedProduct(id, product.name(), product.normalizedName(), categoryId, categoryName)
+                    : product);
+        }
+
+
+        private void renameCategories(Map<Long, String> categoryNames) {
+            products.replaceAll((id, product) -> {
+                String categoryName = categoryNames.get(product.categoryId());
+                return categoryName == null || categoryName.equals(product.categoryName())
+                        ? product
+                        : new IndexedProduct(id, product.name(), product.normalizedName(), product.categoryId(), categoryName);
+            });
+        }
+
+
+        private void removeCategory(Long categoryId) {
+            List<Long> ids = products.values().stream()
+                    .filter(product -> Objects.equals(product.categoryId(), categoryId))
+                    .map(IndexedProduct::id)
+                    .toList();
+            ids.forEach(this::remove);
+        }
+
+
+        /**
+         * Get the products that may contain the query - the intersection of the posting lists of the query trigrams,
+         * or all the products for a query shorter than a trigram
+         * @param query String - normalized query
+         * @return Collection<IndexedProduct>
+         */
+        private Collection<IndexedProduct> candidates(String query) {
+            if (!isIndexedQuery(query)) {
+                return products.values();
+            }
+
+            List<Postings> postings = new ArrayList<>();
+            for (String gram : gramsOf(query, GRAM_LENGTH)) {
+                Postings ids = grams.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                postings.add(ids);
+            }
+            postings.sort(Comparator.comparingInt(ids -> ids.size));
+
+            // Walk the shortest list, the other lists are searched from the position of the previous match
+            Postings shortest = postings.getFirst();
+            int[] from = new int[postings.size()];
+            List<IndexedProduct> result = new ArrayList<>();
+            for (int i = 0; i < shortest.size; i++) {
+                long id = shortest.ids[i];
+                boolean isInAll = true;
+                for (int j = 1; j < postings.size() && isInAll; j++) {
+                    Postings other = postings.get(j);
+                    int index = Arrays.binarySearch(other.ids, from[j], other.size, id);
+                    from[j] = index < 0 ? -index - 1 : index + 1;
+                    isInAll = index >= 0;
+                }
+                if (isInAll) {
+                    result.add(products.get(id));
+                }
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * Posting list of a trigram - the ids of the products containing it, sorted, in a growable primitive array.
+     * The ids are time ordered, so new products are appended at the end
+     */
+    private static class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+
+        private void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+
+        private void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            if (size > 4 && size < ids.length >> 2) {
+                ids = Arrays.copyOf(ids, ids.length >> 1);
+            }
+        }
+
+
+        private void trim() {
+            ids = Arrays.copyOf(ids, Math.max(size, 1));
+        }
+    }
+
+
+    /**
+     * A product as stored in the index
+     */
+    private record IndexedProduct(Long id, String name, String normalizedName, Long categoryId, String categoryName) {
+
+        /**
+         * Converts the indexed product to a product response dto
+         * @return ProductResponseDto
+         */
+        private ProductResponseDto toProductResponse() {
+            return new ProductResponseDto(id, name, categoryId, categoryName);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.sasindu.springsecurity.helpers;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Application-side generator of time-ordered 64-bit ids, used instead of database IDENTITY columns
+ * so that Hibernate can batch inserts and bulk JDBC inserts can assign ids up front.
+ * Layout: 40 bits of milliseconds since 2025-01-01 (until 2059), 5 bits of node id, 8 bits of sequence.
+ * The ids fit in 53 bits, so they stay exact as JSON numbers in JavaScript clients, and they are
+ * larger than the ids previously assigned by the IDENTITY columns and by the previous 4-bit node layout.
+ * Every application instance sharing a database must be given a distinct node id (0-31), passed to Hibernate
+ * in the NODE_PROPERTY setting. All the generators of a node share its sequence, see forNode.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+    public static final String NODE_PROPERTY = "id.generator.node";
+
+    private static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 8;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final Map<Long, NodeSequence> NODE_SEQUENCES = new ConcurrentHashMap<>();
+
+    private NodeSequence sequence;
+
+
+    /**
+     * Hibernate entry point, called once the generator is created - the node id is read from the Hibernate settings
+     * @param context GeneratorCreationContext
+     */
+    @Override
+    public void create(GeneratorCreationContext context) {
+        Object node = context.getServiceRegistry().requireService(ConfigurationService.class).getSettings().get(NODE_PROPERTY);
+        this.sequence = forNode(node == null ? 0L : Long.parseLong(node.toString().trim()));
+    }
+
+
+    /**
+     * Get the id sequence of a node, shared by all its generators so that they never hand out the same id
+     * @param node long - between 0 and 31
+     * @return NodeSequence
+     * @throws IllegalArgumentException If the node id is out of range
+     */
+    public static NodeSequence forNode(long node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException(NODE_PROPERTY + " must be between 0 and " + MAX_NODE + ", got " + node);
+        }
+        return NODE_SEQUENCES.computeIfAbsent(node, NodeSequence::new);
+    }
+
+
+    /**
+     * Get the smallest id that can be generated at a time, on any node - to query rows created after that time
+     * @param epochMillis long
+     * @return long
+     */
+    public static long firstIdAt(long epochMillis) {
+        return Math.max(0, epochMillis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+
+
+    /**
+     * Hibernate entry point, see TimeOrderedId
+     */
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return sequence.nextId();
+    }
+
+
+    /**
+     * Id sequence of a node
+     */
+    public static class NodeSequence {
+        private final long node;
+        private long lastTimestamp;
+        private long sequence;
+
+
+        private NodeSequence(long node) {
+            this.node = node;
+        }
+
+
+        /**
+         * Generate the next id
+         * @return long
+         */
+        public synchronized long nextId() {
+            long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    // Sequence exhausted for this millisecond - move on to the next one without waiting
+                    timestamp++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+        }
+
+
+        /**
+         * Get the node id of the sequence
+         * @return long
+         */
+        public long getNode() {
+            return node;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.sasindu.springsecurity.helpers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+
+/**
+ * Pinning diagnostics for the virtual-thread mode. A virtual thread that blocks inside a synchronized block
+ * (or a native frame) keeps its carrier thread, so a few pinned JDBC or SMTP calls can stall every request.
+ * This monitor streams the JFR jdk.VirtualThreadPinned events in-process and logs the stack of every pin
+ * longer than the threshold, so the offending synchronized paths can be found without attaching a profiler.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "virtual.threads.pinning.diagnostics.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final LongAdder pinnedCount = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private RecordingStream stream;
+
+    @Value("${virtual.threads.pinning.threshold.ms:20}")
+    private long thresholdMillis;
+
+
+    /**
+     * Start streaming the pinning events
+     */
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning diagnostics enabled, threshold {} ms", thresholdMillis);
+    }
+
+
+    /**
+     * Stop streaming the events
+     */
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+
+    /**
+     * Get the number of pins longer than the threshold
+     * @return long
+     */
+    public long getPinnedCount() {
+        return pinnedCount.sum();
+    }
+
+
+    /**
+     * Get the total time virtual threads spent pinned, in milliseconds
+     * @return long
+     */
+    public long getPinnedMillis() {
+        return pinnedNanos.sum() / 1_000_000;
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Record and log a pinning event
+     * @param event RecordedEvent
+     */
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        // Skip the JDK frames of the blocking call, down to the code that holds the monitor
+        String stack = frames.stream()
+                .dropWhile(frame -> isJdkFrame(frame) && frame != frames.getLast())
+                .limit(LOGGED_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n\tat "));
+        log.warn("Virtual thread pinned for {} ms\n\tat {}", event.getDuration().toMillis(), stack);
+    }
+
+
+    /**
+     * Check if the frame is in a JDK class
+     * @param frame RecordedFrame
+     * @return boolean
+     */
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+}
@@ -0,0 +1,45 @@
+package com.sasindu.springsecurity.repository;
+
+import com.sasindu.springsecurity.entities.AccessTokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Repository for the AccessTokenRevocation entity
+ */
+public interface IAccessTokenRevocationRepository extends JpaRepository<AccessTokenRevocation, Long> {
+
+    /**
+     * Find the revocations that are still in effect
+     * @param now - Current time
+     * @return List<AccessTokenRevocation>
+     */
+    List<AccessTokenRevocation> findByExpiresAtAfter(LocalDateTime now);
+
+
+    /**
+     * Find the revocations with a greater id - the ids are time ordered, see TimeOrderedIdGenerator.firstIdAt
+     * @param id - Lower bound of the ids
+     * @return List<AccessTokenRevocation>
+     */
+    List<AccessTokenRevocation> findByIdGreaterThanOrderByIdAsc(Long id);
+
+
+    /**
+     * Delete up to the limit of revocations whose tokens expired before the given time, in its own transaction
+     * @param before - Expiry cut-off
+     * @param limit - Max number of rows to delete
+     * @return int - Number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM access_token_revocations WHERE expires_at < :before LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
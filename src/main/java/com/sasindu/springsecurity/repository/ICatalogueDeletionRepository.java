@@ -0,0 +1,36 @@
+package com.sasindu.springsecurity.repository;
+
+import com.sasindu.springsecurity.entities.CatalogueDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+
+/**
+ * Repository for the CatalogueDeletion entity
+ */
+public interface ICatalogueDeletionRepository extends JpaRepository<CatalogueDeletion, Long> {
+
+    /**
+     * Find the deletions with a greater id - the ids are time ordered, see TimeOrderedIdGenerator.firstIdAt
+     * @param id - Lower bound of the ids
+     * @return List<CatalogueDeletion>
+     */
+    List<CatalogueDeletion> findByIdGreaterThanOrderByIdAsc(Long id);
+
+
+    /**
+     * Delete up to the limit of deletions with a smaller id, in its own transaction
+     * @param id - Upper bound of the ids
+     * @param limit - Max number of rows to delete
+     * @return int - Number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM catalogue_deletions WHERE id < :id LIMIT :limit", nativeQuery = true)
+    int deleteBatchBefore(@Param("id") Long id, @Param("limit") int limit);
+}
@@ -0,0 +1,38 @@
+package com.sasindu.springsecurity.repository;
+
+import com.sasindu.springsecurity.entities.CatalogueState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+
+/**
+ * Repository for the CatalogueState entity
+ */
+public interface ICatalogueStateRepository extends JpaRepository<CatalogueState, Long> {
+
+    /**
+     * Increment the catalogue version atomically, in its own transaction
+     * @param id - Id of the catalogue state row
+     * @param now - Time of the change, in epoch milliseconds
+     * @return int - Number of rows updated, 0 if the row does not exist yet
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CatalogueState s SET s.version = s.version + 1, s.lastModified = :now WHERE s.id = :id")
+    int increment(@Param("id") Long id, @Param("now") long now);
+
+
+    /**
+     * Create the catalogue state row, in its own transaction - fails if another instance created it first
+     * @param id - Id of the catalogue state row
+     * @param now - Initial version and time of the last change, in epoch milliseconds
+     * @return int - Number of rows inserted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO catalogue_state (id, version, last_modified) VALUES (:id, :now, :now)", nativeQuery = true)
+    int create(@Param("id") Long id, @Param("now") long now);
+}
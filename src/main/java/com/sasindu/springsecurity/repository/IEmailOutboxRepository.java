@@ -0,0 +1,46 @@
+package com.sasindu.springsecurity.repository;
+
+import com.sasindu.springsecurity.abstractions.enums.EmailOutboxStatus;
+import com.sasindu.springsecurity.entities.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Repository for the EmailOutbox entity
+ */
+public interface IEmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Find the oldest emails of the given statuses that are due - pending emails due for delivery
+     * and claimed emails whose lease has expired
+     * @param statuses - Statuses of the emails
+     * @param now - Current time
+     * @return List<EmailOutbox>
+     */
+    List<EmailOutbox> findTop100ByStatusInAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(List<EmailOutboxStatus> statuses, LocalDateTime now);
+
+
+    /**
+     * Claim an email for delivery - succeeds only for a due pending email or a claimed email whose lease has expired,
+     * so that exactly one worker of all the instances sends it
+     * @param id - Id of the email
+     * @param now - Current time
+     * @param leaseUntil - End of the lease, the email can be claimed again after it
+     * @return 1 if the email was claimed, 0 if it is claimed by another worker, not due or gone
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE EmailOutbox e SET e.status = com.sasindu.springsecurity.abstractions.enums.EmailOutboxStatus.SENDING, e.nextAttemptAt = :leaseUntil
+            WHERE e.id = :id AND e.nextAttemptAt <= :now
+            AND e.status IN (com.sasindu.springsecurity.abstractions.enums.EmailOutboxStatus.PENDING, com.sasindu.springsecurity.abstractions.enums.EmailOutboxStatus.SENDING)
+            """)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
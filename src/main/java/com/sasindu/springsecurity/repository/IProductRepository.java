@@ -1,9 +1,16 @@
 package com.sasindu.springsecurity.repository;
 
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
 import com.sasindu.springsecurity.entities.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 
 /**
@@ -12,27 +19,58 @@ import java.util.List;
 public interface IProductRepository extends JpaRepository<Product, Long> {
 
     /**
-     * Find all products by name containing
-     * @param name String
-     * @return List<Product>
+     * Find a product by id, fetching its category in the same query
+     * @param id Long
+     * @return Optional<Product>
      */
-    List<Product> findAllByNameContaining(String name);
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Product> findById(Long id);
 
 
     /**
-     * Find all products by category name containing
-     * @param category String
-     * @return List<Product>
+     * Find the next page of products after the given id (keyset pagination), optionally filtered
+     * by name containing and category name containing. The product and its category are read in a
+     * single query and projected directly into the response dto.
+     * @param id Long - id of the last product of the previous page
+     * @param name String - null to skip the name filter
+     * @param category String - null to skip the category filter
+     * @param pageable Pageable - page size
+     * @return Slice<ProductResponseDto>
      */
-    List<Product> findAllByCategoryNameContaining(String category);
-
+    @Query("""
+            SELECT new com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto(p.id, p.name, c.id, c.name)
+            FROM Product p JOIN p.category c
+            WHERE p.id > :id
+              AND (:name IS NULL OR p.name LIKE CONCAT('%', :name, '%'))
+              AND (:category IS NULL OR c.name LIKE CONCAT('%', :category, '%'))
+            ORDER BY p.id ASC
+            """)
+    Slice<ProductResponseDto> findPageAfterId(
+            @Param("id") Long id,
+            @Param("name") String name,
+            @Param("category") String category,
+            Pageable pageable
+    );
 
 
     /**
-     * Find all products by name and category name containing
-     * @param name String
-     * @param category String
-     * @return List<Product>
+     * Find the next page of the products changed since the given time, after the given id (keyset pagination).
+     * Used to refresh the search index with the changes made by the other instances.
+     * @param since LocalDateTime - lower bound of the time of the last change
+     * @param id Long - id of the last product of the previous page
+     * @param pageable Pageable - page size
+     * @return Slice<ProductResponseDto>
      */
-    List<Product> findAllByNameContainingAndCategoryNameContaining(String name, String category);
+    @Query("""
+            SELECT new com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto(p.id, p.name, c.id, c.name)
+            FROM Product p JOIN p.category c
+            WHERE p.updatedAt >= :since AND p.id > :id
+            ORDER BY p.id ASC
+            """)
+    Slice<ProductResponseDto> findPageUpdatedSince(
+            @Param("since") LocalDateTime since,
+            @Param("id") Long id,
+            Pageable pageable
+    );
 }
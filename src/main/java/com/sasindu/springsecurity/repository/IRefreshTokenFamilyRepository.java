@@ -0,0 +1,76 @@
+package com.sasindu.springsecurity.repository;
+
+import com.sasindu.springsecurity.entities.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+/**
+ * Repository for the RefreshTokenFamily entity
+ */
+public interface IRefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, Long> {
+
+    /**
+     * Move the family to a new refresh token, only if the presented token is the latest one and the family is not revoked.
+     * The presented token becomes the previous token of the family (previousJti is assigned first, MySQL evaluates
+     * the assignments from left to right)
+     * @param id - ID of the family
+     * @param jti - ID of the presented refresh token
+     * @param newJti - ID of the new refresh token
+     * @param expiresAt - Expiry of the new refresh token
+     * @param now - Time of the rotation
+     * @return int - 1 if rotated, 0 if the token was already rotated or the family is revoked
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE RefreshTokenFamily f SET f.previousJti = f.currentJti, f.currentJti = :newJti, f.rotatedAt = :now, f.expiresAt = :expiresAt
+            WHERE f.id = :id AND f.currentJti = :jti AND f.revoked = false
+            """)
+    int rotate(@Param("id") Long id, @Param("jti") String jti, @Param("newJti") String newJti, @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+
+    /**
+     * Revoke a family
+     * @param id - ID of the family
+     * @return int - Number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshTokenFamily f SET f.revoked = true WHERE f.id = :id")
+    int revoke(@Param("id") Long id);
+
+
+    /**
+     * Find the active families of a user
+     * @param userId - ID of the user
+     * @return List<RefreshTokenFamily>
+     */
+    List<RefreshTokenFamily> findByUserIdAndRevokedFalse(Long userId);
+
+
+    /**
+     * Find the revoked families whose refresh tokens have not expired yet
+     * @param now - Current time
+     * @return List<RefreshTokenFamily>
+     */
+    List<RefreshTokenFamily> findByRevokedTrueAndExpiresAtAfter(LocalDateTime now);
+
+
+    /**
+     * Delete up to the limit of families whose refresh tokens expired before the given time, in its own transaction
+     * @param before - Expiry cut-off
+     * @param limit - Max number of rows to delete
+     * @return int - Number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token_families WHERE expires_at < :before LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
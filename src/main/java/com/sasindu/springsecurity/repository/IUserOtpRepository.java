@@ -3,6 +3,12 @@ package com.sasindu.springsecurity.repository;
 import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
 import com.sasindu.springsecurity.entities.UserOtp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 
 /**
@@ -24,4 +30,16 @@ public interface IUserOtpRepository  extends JpaRepository<UserOtp, Long> {
      * @param userId - ID of the user
      */
     void deleteByTypeAndUserId(OtpEmailType type, Long userId);
+
+
+    /**
+     * Delete up to the limit of OTPs that expired before the given time, in its own transaction
+     * @param before - Expiry cut-off
+     * @param limit - Max number of rows to delete
+     * @return int - Number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_otp WHERE expires < :before LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
 }
@@ -0,0 +1,210 @@
+package com.sasindu.springsecurity.security.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.LongToIntFunction;
+
+
+/**
+ * Builds the DelegatingPasswordEncoder used for the user passwords.
+ * New hashes are created with the configured algorithm (bcrypt, argon2 or pbkdf2) and prefixed with its id,
+ * existing hashes of any of the algorithms - including the unprefixed bcrypt hashes stored before - still match.
+ * The cost of the algorithm is calibrated on startup so that one hash takes about the target time on the
+ * current hardware, never going below the recommended minimum. Hashes with a different algorithm or a lower
+ * cost are upgraded on the next successful login (see AppUserDetailsService.updatePassword).
+ * Pbkdf2PasswordEncoder does not record the iterations in its hashes, so pbkdf2 hashes are prefixed with their
+ * iterations (see IterationsPbkdf2PasswordEncoder) to stay verifiable after a recalibration and to be upgraded.
+ */
+@Slf4j
+public final class PasswordEncoderFactory {
+    private static final String BCRYPT = "bcrypt";
+    private static final String ARGON2 = "argon2";
+    private static final String PBKDF2 = "pbkdf2";
+
+    private static final int BCRYPT_MIN_STRENGTH = 10;
+    private static final int BCRYPT_MAX_STRENGTH = 16;
+    private static final int ARGON2_MIN_ITERATIONS = 2;
+    private static final int ARGON2_MEMORY_KB = 19 * 1024;
+    private static final int PBKDF2_MIN_ITERATIONS = 600_000;
+    private static final int PBKDF2_PROBE_ITERATIONS = 100_000;
+    private static final String PROBE_PASSWORD = "Calibration-Password-1";
+
+
+    private PasswordEncoderFactory() {
+    }
+
+
+    /**
+     * Create the password encoder
+     * @param algorithm String - algorithm of the new hashes: bcrypt, argon2 or pbkdf2
+     * @param targetMillis long - target time of one hash, 0 to use the minimum cost without calibration
+     * @return PasswordEncoder
+     */
+    public static PasswordEncoder create(String algorithm, long targetMillis) {
+        if (!BCRYPT.equals(algorithm) && !ARGON2.equals(algorithm) && !PBKDF2.equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password encoder " + algorithm + ", use bcrypt, argon2 or pbkdf2");
+        }
+
+        // Only the algorithm of the new hashes is calibrated, the others are only used to match existing hashes
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, BCRYPT.equals(algorithm) ? calibrateBcrypt(targetMillis) : new BCryptPasswordEncoder(BCRYPT_MIN_STRENGTH));
+        encoders.put(ARGON2, ARGON2.equals(algorithm) ? calibrateArgon2(targetMillis) : argon2(ARGON2_MIN_ITERATIONS));
+        encoders.put(PBKDF2, PBKDF2.equals(algorithm) ? calibratePbkdf2(targetMillis) : new IterationsPbkdf2PasswordEncoder(PBKDF2_MIN_ITERATIONS));
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        return encoder;
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Calibrate the bcrypt strength - each step doubles the cost
+     * @param targetMillis long
+     * @return BCryptPasswordEncoder
+     */
+    private static BCryptPasswordEncoder calibrateBcrypt(long targetMillis) {
+        int strength = calibrate(targetMillis, BCRYPT_MIN_STRENGTH, BCryptPasswordEncoder::new,
+                (probeMillis) -> BCRYPT_MIN_STRENGTH + (int) Math.floor(Math.log((double) targetMillis / probeMillis) / Math.log(2)));
+        strength = Math.min(strength, BCRYPT_MAX_STRENGTH);
+        log.info("Password encoder: bcrypt, strength {}", strength);
+        return new BCryptPasswordEncoder(strength);
+    }
+
+
+    /**
+     * Calibrate the argon2 iterations - the cost grows linearly with the iterations
+     * @param targetMillis long
+     * @return Argon2PasswordEncoder
+     */
+    private static Argon2PasswordEncoder calibrateArgon2(long targetMillis) {
+        int iterations = calibrate(targetMillis, ARGON2_MIN_ITERATIONS, PasswordEncoderFactory::argon2,
+                (probeMillis) -> (int) (ARGON2_MIN_ITERATIONS * targetMillis / probeMillis));
+        log.info("Password encoder: argon2id, {} KB, {} iterations", ARGON2_MEMORY_KB, iterations);
+        return argon2(iterations);
+    }
+
+
+    /**
+     * Calibrate the pbkdf2 iterations - the cost grows linearly with the iterations
+     * @param targetMillis long
+     * @return IterationsPbkdf2PasswordEncoder
+     */
+    private static IterationsPbkdf2PasswordEncoder calibratePbkdf2(long targetMillis) {
+        int iterations = calibrate(targetMillis, PBKDF2_PROBE_ITERATIONS, PasswordEncoderFactory::pbkdf2,
+                (probeMillis) -> (int) Math.min(Integer.MAX_VALUE, PBKDF2_PROBE_ITERATIONS * targetMillis / probeMillis));
+        iterations = Math.max(iterations, PBKDF2_MIN_ITERATIONS);
+        log.info("Password encoder: pbkdf2 (HMAC-SHA256), {} iterations", iterations);
+        return new IterationsPbkdf2PasswordEncoder(iterations);
+    }
+
+
+    /**
+     * Time a hash at the probe cost and derive the cost that matches the target time
+     * @param targetMillis long - 0 to skip the calibration
+     * @param probeCost int - cost of the timed hash, also the minimum cost
+     * @param encoderFactory IntFunction<PasswordEncoder> - creates an encoder of a given cost
+     * @param costForProbeTime LongToIntFunction - computes the cost from the time of the probe hash
+     * @return int
+     */
+    private static int calibrate(long targetMillis, int probeCost, IntFunction<? extends PasswordEncoder> encoderFactory, LongToIntFunction costForProbeTime) {
+        if (targetMillis <= 0) {
+            return probeCost;
+        }
+        PasswordEncoder probe = encoderFactory.apply(probeCost);
+        probe.encode(PROBE_PASSWORD); // warm up
+
+        // Best of a few runs, so that a GC pause or a noisy neighbour does not inflate the measure
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode(PROBE_PASSWORD);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        long probeMillis = Math.max(1, bestNanos / 1_000_000);
+        return Math.max(probeCost, costForProbeTime.applyAsInt(probeMillis));
+    }
+
+
+    private static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KB, iterations);
+    }
+
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+
+    /**
+     * Pbkdf2 encoder that records the iterations in the hash, as iterations$hex-salt-and-hash, and matches each hash
+     * with its own iterations. Hashes without iterations were created before with the minimum iterations.
+     * A hash is upgraded when it has fewer iterations than the encoder.
+     */
+    static final class IterationsPbkdf2PasswordEncoder implements PasswordEncoder {
+        private static final char SEPARATOR = '$';
+
+        private final int iterations;
+        private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+
+        IterationsPbkdf2PasswordEncoder(int iterations) {
+            this.iterations = iterations;
+        }
+
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return iterations + String.valueOf(SEPARATOR) + encoder(iterations).encode(rawPassword);
+        }
+
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            int separator = encodedPassword.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return encoder(PBKDF2_MIN_ITERATIONS).matches(rawPassword, encodedPassword);
+            }
+            int hashIterations = iterationsOf(encodedPassword, separator);
+            return hashIterations > 0 && encoder(hashIterations).matches(rawPassword, encodedPassword.substring(separator + 1));
+        }
+
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            int separator = encodedPassword.indexOf(SEPARATOR);
+            return separator < 0 || iterationsOf(encodedPassword, separator) < iterations;
+        }
+
+
+        private Pbkdf2PasswordEncoder encoder(int hashIterations) {
+            return encoders.computeIfAbsent(hashIterations, PasswordEncoderFactory::pbkdf2);
+        }
+
+
+        private static int iterationsOf(String encodedPassword, int separator) {
+            try {
+                return Integer.parseInt(encodedPassword, 0, separator, 10);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
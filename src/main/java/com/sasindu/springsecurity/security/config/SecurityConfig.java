@@ -5,7 +5,11 @@ import com.sasindu.springsecurity.constants.ApplicationConstants;
 import com.sasindu.springsecurity.security.jwt.JWTAuthEntryPoint;
 import com.sasindu.springsecurity.security.jwt.JWTAuthFilter;
 import com.sasindu.springsecurity.security.services.AppUserDetailsService;
+import com.sasindu.springsecurity.security.services.BoundedPasswordEncoder;
+import com.sasindu.springsecurity.security.services.CachingUserDetailsService;
+import com.sasindu.springsecurity.security.services.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.server.CookieSameSiteSupplier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,7 +22,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -34,7 +37,15 @@ import java.util.Arrays;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
     private final AppUserDetailsService _userDetailsService;
+    private final CachingUserDetailsService _userDetailsCache;
     private final JWTAuthEntryPoint _jwtAuthEntryPoint;
+    private final PasswordHashingExecutor _passwordHashingExecutor;
+
+    @Value("${password.encoder.algorithm:bcrypt}")
+    private String passwordEncoderAlgorithm;
+
+    @Value("${password.encoder.target.ms:100}")
+    private long passwordEncoderTargetMillis;
 
 
 
@@ -67,14 +78,18 @@ public class SecurityConfig {
     }
 
     /**
-     * Password encoder bean - use BCryptPasswordEncoder
+     * Password encoder bean - calibrated DelegatingPasswordEncoder (see PasswordEncoderFactory),
+     * hashing on the bounded PasswordHashingExecutor
      *
      * @return PasswordEncoder object
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
         try {
-            return new BCryptPasswordEncoder();
+            return new BoundedPasswordEncoder(
+                    PasswordEncoderFactory.create(passwordEncoderAlgorithm, passwordEncoderTargetMillis),
+                    _passwordHashingExecutor
+            );
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -123,6 +138,8 @@ public class SecurityConfig {
             DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
             provider.setUserDetailsService(_userDetailsService);
             provider.setPasswordEncoder(passwordEncoder());
+            // Re-hash outdated password hashes on successful login, through the cache so that the user is evicted
+            provider.setUserDetailsPasswordService(_userDetailsCache);
             return provider;
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -0,0 +1,111 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import com.sasindu.springsecurity.abstractions.enums.AppUserRoles;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Immutable view of the claims carried by a verified access token.
+ * Two claim profiles are understood, so that tokens of both stay valid while the profile is switched:
+ * the standard profile (roles list, userId, email) and the compact profile (uid, role bitmask rl, email read from the subject).
+ *
+ * @param subject The subject of the token
+ * @param userId The id of the user
+ * @param roles The roles of the user
+ * @param email The email of the user
+ * @param expiresAt The expiration time of the token
+ * @param jti The id of the token, null for tokens issued before token ids were introduced
+ * @param issuedAt The issue time of the token
+ */
+public record AccessTokenClaims(String subject, Long userId, List<String> roles, String email, Instant expiresAt, String jti, Instant issuedAt) {
+    static final String ROLES = "roles";
+    static final String USER_ID = "userId";
+    static final String EMAIL = "email";
+    static final String COMPACT_USER_ID = "uid";
+    static final String COMPACT_ROLES = "rl";
+
+    private static final AppUserRoles[] ALL_ROLES = AppUserRoles.values();
+
+    public AccessTokenClaims {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+
+    /**
+     * Create the claims view from the parsed token payload
+     *
+     * @param claims The parsed claims
+     * @return AccessTokenClaims
+     */
+    static AccessTokenClaims from(Claims claims) {
+        List<String> roles;
+        Long roleBits = claims.get(COMPACT_ROLES, Long.class);
+        if (roleBits != null) {
+            roles = decodeRoles(roleBits);
+        } else {
+            List<?> rawRoles = claims.get(ROLES, List.class);
+            roles = rawRoles == null
+                    ? List.of()
+                    : rawRoles.stream().map(String::valueOf).toList();
+        }
+
+        Long userId = claims.get(COMPACT_USER_ID, Long.class);
+        String email = claims.get(EMAIL, String.class);
+        return new AccessTokenClaims(
+                claims.getSubject(),
+                userId != null ? userId : claims.get(USER_ID, Long.class),
+                roles,
+                email != null ? email : claims.getSubject(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                claims.getId(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant()
+        );
+    }
+
+
+    /**
+     * Encode roles as a bitmask of the AppUserRoles bits, for the compact profile
+     *
+     * @param roles The role names
+     * @return The bitmask, null if a role is not an AppUserRoles constant and cannot be encoded
+     */
+    static Long encodeRoles(Collection<String> roles) {
+        long bits = 0;
+        for (String role : roles) {
+            AppUserRoles known = null;
+            for (AppUserRoles candidate : ALL_ROLES) {
+                if (candidate.name().equals(role)) {
+                    known = candidate;
+                    break;
+                }
+            }
+            if (known == null) {
+                return null;
+            }
+            bits |= 1L << known.getBit();
+        }
+        return bits;
+    }
+
+
+    /**
+     * Decode a role bitmask of the compact profile - unknown bits are ignored
+     *
+     * @param bits The bitmask
+     * @return The role names
+     */
+    private static List<String> decodeRoles(long bits) {
+        List<String> roles = new ArrayList<>(1);
+        for (AppUserRoles role : ALL_ROLES) {
+            if ((bits & (1L << role.getBit())) != 0) {
+                roles.add(role.name());
+            }
+        }
+        return roles;
+    }
+}
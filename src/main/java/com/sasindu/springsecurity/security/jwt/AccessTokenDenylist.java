@@ -0,0 +1,135 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+/**
+ * In-memory denylist of access tokens, checked by JWTAuthFilter on every authenticated request.
+ * Holds revoked token ids (jti) and, per user, the time up to which all tokens are revoked. Lookups are
+ * two hash map reads, and nothing at all when the denylist is empty. Entries are grouped in one-minute
+ * buckets by the time they stop mattering (when the revoked tokens expire), so prune() drops whole
+ * buckets without scanning the live entries.
+ */
+@Component
+public class AccessTokenDenylist {
+    private static final long BUCKET_MILLIS = 60_000;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, UserCutOff> revokedBefore = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Queue<Runnable>> buckets = new ConcurrentSkipListMap<>();
+
+
+    /**
+     * Revoke a single token
+     * @param jti String - id of the token
+     * @param expiresAtMillis long - expiry of the token
+     */
+    public void revokeToken(String jti, long expiresAtMillis) {
+        revokedTokens.merge(jti, expiresAtMillis, Math::max);
+        schedule(expiresAtMillis, () -> revokedTokens.remove(jti, expiresAtMillis));
+    }
+
+
+    /**
+     * Revoke all the tokens of a user issued up to a time, except the token of the session started with the revocation.
+     * The issue time of a token has a one second precision, so the tokens issued in the same second as the cut-off
+     * are revoked as well
+     * @param userId Long
+     * @param beforeMillis long - tokens issued at or before this time are revoked
+     * @param exemptJti String - id of the token that stays valid, null for none
+     * @param expiresAtMillis long - time after which every revoked token has expired
+     */
+    public void revokeUser(Long userId, long beforeMillis, String exemptJti, long expiresAtMillis) {
+        revokedBefore.merge(userId, new UserCutOff(beforeMillis, exemptJti), UserCutOff::latest);
+        schedule(expiresAtMillis, () -> revokedBefore.computeIfPresent(userId, (id, cutOff) -> cutOff.beforeMillis() == beforeMillis ? null : cutOff));
+    }
+
+
+    /**
+     * Check if a verified token is revoked
+     * @param claims AccessTokenClaims
+     * @return boolean
+     */
+    public boolean isRevoked(AccessTokenClaims claims) {
+        if (claims.jti() != null && !revokedTokens.isEmpty() && revokedTokens.containsKey(claims.jti())) {
+            return true;
+        }
+        if (claims.userId() == null || revokedBefore.isEmpty()) {
+            return false;
+        }
+        UserCutOff cutOff = revokedBefore.get(claims.userId());
+        if (cutOff == null) {
+            return false;
+        }
+        // Tokens without an issue time predate the revocation support and cannot be told apart, deny them
+        if (claims.issuedAt() == null) {
+            return true;
+        }
+        return claims.issuedAt().toEpochMilli() <= cutOff.beforeMillis()
+                && (cutOff.exemptJti() == null || !cutOff.exemptJti().equals(claims.jti()));
+    }
+
+
+    /**
+     * Drop the entries whose revoked tokens have all expired
+     */
+    public void prune() {
+        long currentBucket = System.currentTimeMillis() / BUCKET_MILLIS;
+        Map.Entry<Long, Queue<Runnable>> bucket;
+        while ((bucket = buckets.firstEntry()) != null && bucket.getKey() < currentBucket) {
+            buckets.remove(bucket.getKey());
+            bucket.getValue().forEach(Runnable::run);
+        }
+    }
+
+
+    /**
+     * Get the number of revoked tokens and users in the denylist
+     * @return int
+     */
+    public int size() {
+        return revokedTokens.size() + revokedBefore.size();
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Register the removal of an entry in the bucket of its expiry minute
+     * @param expiresAtMillis long
+     * @param removal Runnable - removes the entry, only if it was not replaced by a later revocation
+     */
+    private void schedule(long expiresAtMillis, Runnable removal) {
+        buckets.computeIfAbsent(expiresAtMillis / BUCKET_MILLIS, bucket -> new ConcurrentLinkedQueue<>()).add(removal);
+    }
+
+
+    /**
+     * Revocation of the tokens of a user up to a time, except the token of the session started with it
+     * @param beforeMillis long
+     * @param exemptJti String - null for none
+     */
+    private record UserCutOff(long beforeMillis, String exemptJti) {
+
+        /**
+         * Merge two cut-offs - the later one wins. Two cut-offs in the same second exempting different tokens
+         * exempt neither, so that the result does not depend on the order they are applied in
+         * @param other UserCutOff
+         * @return UserCutOff
+         */
+        private UserCutOff latest(UserCutOff other) {
+            if (beforeMillis != other.beforeMillis) {
+                return beforeMillis > other.beforeMillis ? this : other;
+            }
+            return Objects.equals(exemptJti, other.exemptJti) ? this : new UserCutOff(beforeMillis, null);
+        }
+    }
+}
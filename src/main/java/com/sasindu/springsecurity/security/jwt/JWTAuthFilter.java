@@ -2,7 +2,7 @@ package com.sasindu.springsecurity.security.jwt;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sasindu.springsecurity.helpers.HelperUtilMethods;
-import com.sasindu.springsecurity.security.services.AppUserDetailsService;
+import com.sasindu.springsecurity.security.services.CachingUserDetailsService;
 import io.jsonwebtoken.JwtException;
 import jakarta.annotation.Nullable;
 import jakarta.servlet.FilterChain;
@@ -10,6 +10,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -26,10 +27,17 @@ import java.util.Map;
 @Component
 public class JWTAuthFilter extends OncePerRequestFilter {
     @Autowired
-    private JWTUtils jwtUtils;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @Autowired
-    private AppUserDetailsService userDetailsService;
+    private CachingUserDetailsService userDetailsService;
+
+    @Autowired
+    private AccessTokenDenylist accessTokenDenylist;
+
+    // When true, the principal is built from the access token claims instead of loading the user from the database
+    @Value("${jwt.claims.trusted:false}")
+    private boolean isClaimsTrusted;
 
     // Use this approach if you want to change header based or cookie based JWT
     //    @Value("${jwt.type.cookie.based}")
@@ -58,13 +66,20 @@ public class JWTAuthFilter extends OncePerRequestFilter {
 
             String token = parseJwt(request);
 
-            if(!StringUtils.hasText(token) || !jwtUtils.isAccessTokenValid(token)) {
+            if(!StringUtils.hasText(token)) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            String email = jwtUtils.getEmailFromAccessToken(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            // Verify the signature once (or reuse a recent verification) and reuse the parsed claims
+            AccessTokenClaims claims = verifiedTokenCache.verify(token);
+            // Checked after the cache as well, so a revoked token is rejected even while its verification is cached
+            if (accessTokenDenylist.isRevoked(claims)) {
+                throw new JwtException("Access token has been revoked");
+            }
+            UserDetails userDetails = isClaimsTrusted && claims.userId() != null
+                    ? new JWTUserPrincipal(claims)
+                    : userDetailsService.loadUserByUsername(claims.subject());
             Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
             SecurityContextHolder.getContext().setAuthentication(authentication);
         } catch (JwtException e) {
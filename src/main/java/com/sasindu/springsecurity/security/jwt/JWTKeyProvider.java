@@ -0,0 +1,440 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import com.sasindu.springsecurity.helpers.HelperUtilMethods;
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.*;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.*;
+
+
+/**
+ * Holds the keys used to sign and verify JWTs, together with the parsers built for them.
+ * Refresh tokens are always signed with the HMAC refresh secret. Access tokens are signed either with the
+ * HMAC access secret (HS256) or, when jwt.access.signing.algorithm is EdDSA or ES256, with the private key
+ * of the active key id, so that other services can verify them with the public keys published as JWKS.
+ * Access tokens carry the key id (kid) header; all the configured public keys are accepted, which gives
+ * an overlap window when rotating: add the new key, make it active, and remove the old key once the
+ * tokens it signed have expired. Tokens without a kid (signed with the HMAC access secret before switching to
+ * an asymmetric algorithm) are accepted only until jwt.access.signing.hmac.accept.until, and rejected when it
+ * is not set - otherwise the HMAC access secret could mint valid access tokens forever.
+ * The keys are derived once from the configuration and re-derived only when it changes.
+ * The key properties can also be read from jwt.keys.file (e.g. a mounted secret), which overrides the environment
+ * and is re-read every jwt.keys.reload.interval.ms, so that secrets and signing keys rotate without a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JWTKeyProvider {
+    private static final String ACCESS_SECRET_PROPERTY = "jwt.access.secret";
+    private static final String REFRESH_SECRET_PROPERTY = "jwt.refresh.secret";
+    private static final String SIGNING_ALGORITHM_PROPERTY = "jwt.access.signing.algorithm";
+    private static final String ACTIVE_KID_PROPERTY = "jwt.access.signing.active.kid";
+    private static final String KIDS_PROPERTY = "jwt.access.signing.kids";
+    private static final String KEY_PROPERTY = "jwt.access.signing.key.%s.%s";
+    private static final String HMAC_ACCEPT_UNTIL_PROPERTY = "jwt.access.signing.hmac.accept.until";
+    private static final String HS256 = "HS256";
+    private static final String KEYS_FILE_PROPERTY = "jwt.keys.file";
+
+    private final Environment _environment;
+
+    private volatile KeyMaterial keyMaterial;
+
+
+    /**
+     * Derive the keys on application startup
+     */
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+
+    /**
+     * Get the key used for access tokens
+     *
+     * @return SecretKey
+     */
+    public SecretKey accessKey() {
+        return keyMaterial.accessKey();
+    }
+
+
+    /**
+     * Get the key used for refresh tokens
+     *
+     * @return SecretKey
+     */
+    public SecretKey refreshKey() {
+        return keyMaterial.refreshKey();
+    }
+
+
+    /**
+     * Get the key signing access tokens with an asymmetric algorithm
+     *
+     * @return SigningKey - null when access tokens are signed with the HMAC access secret
+     */
+    public SigningKey accessSigningKey() {
+        return keyMaterial.accessSigningKey();
+    }
+
+
+    /**
+     * Get the public keys verifying access tokens, as a JWK set
+     *
+     * @return Map<String, Object> - {"keys": [...]}, empty when access tokens are signed with the HMAC access secret
+     */
+    public Map<String, Object> accessJwks() {
+        return keyMaterial.jwks();
+    }
+
+
+    /**
+     * Get the prebuilt parser verifying access tokens - JwtParser is immutable and thread-safe
+     *
+     * @return JwtParser
+     */
+    public JwtParser accessParser() {
+        return keyMaterial.accessParser();
+    }
+
+
+    /**
+     * Get the prebuilt parser verifying refresh tokens - JwtParser is immutable and thread-safe
+     *
+     * @return JwtParser
+     */
+    public JwtParser refreshParser() {
+        return keyMaterial.refreshParser();
+    }
+
+
+    /**
+     * Re-read the keys file, if configured, and swap the keys when they have been rotated.
+     * A failed reload keeps the current keys.
+     */
+    @Scheduled(fixedDelayString = "${jwt.keys.reload.interval.ms:30000}", initialDelayString = "${jwt.keys.reload.interval.ms:30000}")
+    public void reloadKeysFile() {
+        if (_environment.getProperty(KEYS_FILE_PROPERTY, "").isBlank()) {
+            return;
+        }
+        try {
+            if (reload()) {
+                log.info("JWT keys reloaded from {}", _environment.getProperty(KEYS_FILE_PROPERTY));
+            }
+        } catch (Exception e) {
+            log.error("Failed to reload the JWT keys, keeping the current keys: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Re-read the secrets and signing keys from the keys file and the environment and swap the keys if they have been rotated
+     *
+     * @return true if the keys were replaced, false if the configuration is unchanged
+     */
+    public synchronized boolean reload() {
+        try {
+            KeyConfig config = new KeyConfig(readKeysFile(), _environment);
+            String accessSecret = config.getRequired(ACCESS_SECRET_PROPERTY);
+            String refreshSecret = config.getRequired(REFRESH_SECRET_PROPERTY);
+            String signingConfig = readSigningConfig(config);
+
+            KeyMaterial current = this.keyMaterial;
+            if (current != null && current.isDerivedFrom(accessSecret, refreshSecret, signingConfig)) {
+                return false;
+            }
+
+            SecretKey accessKey = Keys.hmacShaKeyFor(HelperUtilMethods.hexStringToByteArray(accessSecret));
+            SecretKey refreshKey = Keys.hmacShaKeyFor(HelperUtilMethods.hexStringToByteArray(refreshSecret));
+
+            String algorithm = config.get(SIGNING_ALGORITHM_PROPERTY, HS256);
+            SignatureAlgorithm signatureAlgorithm = null;
+            SigningKey signingKey = null;
+            Map<String, PublicKey> publicKeys = Map.of();
+            if (!HS256.equalsIgnoreCase(algorithm)) {
+                signatureAlgorithm = signatureAlgorithmOf(algorithm);
+                publicKeys = new LinkedHashMap<>();
+                signingKey = loadSigningKeys(config, algorithm, signatureAlgorithm, publicKeys);
+            }
+            String hmacAcceptUntil = config.get(HMAC_ACCEPT_UNTIL_PROPERTY, "");
+
+            this.keyMaterial = new KeyMaterial(
+                    accessSecret,
+                    refreshSecret,
+                    signingConfig,
+                    accessKey,
+                    refreshKey,
+                    signingKey,
+                    toJwks(signatureAlgorithm, publicKeys),
+                    buildAccessParser(accessKey, publicKeys, hmacAcceptUntil.isBlank() ? null : Instant.parse(hmacAcceptUntil)),
+                    Jwts.parser().verifyWith(refreshKey).build()
+            );
+            return true;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Read the keys file
+     *
+     * @return The properties of the file, empty if no file is configured
+     */
+    private Properties readKeysFile() throws IOException {
+        Properties properties = new Properties();
+        String file = _environment.getProperty(KEYS_FILE_PROPERTY, "");
+        if (!file.isBlank()) {
+            try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+
+    /**
+     * Read all the signing key properties, to detect a change of the configuration
+     *
+     * @param config The key configuration
+     * @return The concatenated configuration
+     */
+    private static String readSigningConfig(KeyConfig config) {
+        StringBuilder signingConfig = new StringBuilder()
+                .append(config.get(SIGNING_ALGORITHM_PROPERTY, HS256)).append('|')
+                .append(config.get(ACTIVE_KID_PROPERTY, "")).append('|')
+                .append(config.get(HMAC_ACCEPT_UNTIL_PROPERTY, "")).append('|');
+        for (String kid : configuredKids(config)) {
+            signingConfig.append(kid).append('|')
+                    .append(config.get(KEY_PROPERTY.formatted(kid, "private"), "")).append('|')
+                    .append(config.get(KEY_PROPERTY.formatted(kid, "public"), "")).append('|');
+        }
+        return signingConfig.toString();
+    }
+
+
+    /**
+     * Get the configured key ids
+     *
+     * @param config The key configuration
+     * @return List<String>
+     */
+    private static List<String> configuredKids(KeyConfig config) {
+        return Arrays.stream(config.get(KIDS_PROPERTY, "").split(","))
+                .map(String::trim)
+                .filter(kid -> !kid.isEmpty())
+                .toList();
+    }
+
+
+    /**
+     * Load the public keys of all the configured key ids and the private key of the active one.
+     * Without any configured key an ephemeral key pair is generated - fine for development, but the tokens
+     * do not survive a restart and are not accepted by other instances.
+     *
+     * @param config The key configuration
+     * @param algorithm The algorithm name, EdDSA or ES256
+     * @param signatureAlgorithm The signature algorithm
+     * @param publicKeys The map to fill with the public keys by key id
+     * @return The active signing key
+     */
+    private static SigningKey loadSigningKeys(KeyConfig config, String algorithm, SignatureAlgorithm signatureAlgorithm, Map<String, PublicKey> publicKeys) throws GeneralSecurityException {
+        String keyFactoryAlgorithm = "ES256".equalsIgnoreCase(algorithm) ? "EC" : "Ed25519";
+        List<String> kids = configuredKids(config);
+
+        if (kids.isEmpty()) {
+            KeyPair keyPair = generateKeyPair(keyFactoryAlgorithm);
+            String kid = "ephemeral-" + Long.toHexString(System.currentTimeMillis());
+            log.warn("No JWT signing keys configured, using an ephemeral {} key pair with kid {}", algorithm, kid);
+            publicKeys.put(kid, keyPair.getPublic());
+            return new SigningKey(kid, keyPair.getPrivate(), signatureAlgorithm);
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm);
+        for (String kid : kids) {
+            String publicKey = config.getRequired(KEY_PROPERTY.formatted(kid, "public"));
+            publicKeys.put(kid, keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKey))));
+        }
+
+        String activeKid = config.getRequired(ACTIVE_KID_PROPERTY);
+        if (!publicKeys.containsKey(activeKid)) {
+            throw new IllegalStateException(ACTIVE_KID_PROPERTY + " must be one of " + KIDS_PROPERTY);
+        }
+        String privateKey = config.getRequired(KEY_PROPERTY.formatted(activeKid, "private"));
+        return new SigningKey(activeKid, keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKey))), signatureAlgorithm);
+    }
+
+
+    /**
+     * Build the access token parser - tokens with a kid are verified with the matching public key,
+     * tokens without a kid with the HMAC access secret, until the cut-off
+     *
+     * @param accessKey The HMAC access key
+     * @param publicKeys The public keys by key id
+     * @param hmacAcceptUntil Time until which tokens without a kid are accepted, null to reject them
+     * @return JwtParser
+     */
+    private static JwtParser buildAccessParser(SecretKey accessKey, Map<String, PublicKey> publicKeys, Instant hmacAcceptUntil) {
+        if (publicKeys.isEmpty()) {
+            return Jwts.parser().verifyWith(accessKey).build();
+        }
+        Map<String, PublicKey> keys = Map.copyOf(publicKeys);
+        return Jwts.parser().keyLocator(new LocatorAdapter<>() {
+            @Override
+            protected Key locate(ProtectedHeader header) {
+                String kid = header.getKeyId();
+                if (kid == null) {
+                    if (hmacAcceptUntil == null || !Instant.now().isBefore(hmacAcceptUntil)) {
+                        throw new MalformedJwtException("Access tokens without a signing key id are no longer accepted");
+                    }
+                    return accessKey;
+                }
+                PublicKey key = keys.get(kid);
+                if (key == null) {
+                    throw new MalformedJwtException("Unknown signing key id " + kid);
+                }
+                return key;
+            }
+        }).build();
+    }
+
+
+    /**
+     * Build the public JWK set
+     *
+     * @param algorithm The signature algorithm of the public keys, null for HMAC (no public keys)
+     * @param publicKeys The public keys by key id
+     * @return Map<String, Object>
+     */
+    private static Map<String, Object> toJwks(SignatureAlgorithm algorithm, Map<String, PublicKey> publicKeys) {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((kid, publicKey) -> {
+            Jwk<?> jwk = Jwks.builder().key(publicKey).id(kid).algorithm(algorithm.getId()).publicKeyUse("sig").build();
+            keys.add(new LinkedHashMap<>(jwk));
+        });
+        return Map.of("keys", List.copyOf(keys));
+    }
+
+
+    private static SignatureAlgorithm signatureAlgorithmOf(String algorithm) {
+        if ("EdDSA".equalsIgnoreCase(algorithm) || "Ed25519".equalsIgnoreCase(algorithm)) {
+            return Jwts.SIG.EdDSA;
+        }
+        if ("ES256".equalsIgnoreCase(algorithm)) {
+            return Jwts.SIG.ES256;
+        }
+        throw new IllegalStateException("Unsupported " + SIGNING_ALGORITHM_PROPERTY + " " + algorithm + ", use HS256, EdDSA or ES256");
+    }
+
+
+    private static KeyPair generateKeyPair(String keyFactoryAlgorithm) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyFactoryAlgorithm);
+        if ("EC".equals(keyFactoryAlgorithm)) {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        }
+        return generator.generateKeyPair();
+    }
+
+
+    /**
+     * Decode a PEM (or bare Base64) encoded key
+     *
+     * @param value The encoded key
+     * @return The DER bytes
+     */
+    private static byte[] decodePem(String value) {
+        String base64 = value.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+
+    /**
+     * Key properties read from the keys file, falling back to the environment
+     *
+     * @param file The properties of the keys file
+     * @param environment The environment
+     */
+    private record KeyConfig(Properties file, Environment environment) {
+
+        private String get(String name, String defaultValue) {
+            String value = file.getProperty(name);
+            return value != null ? value.trim() : environment.getProperty(name, defaultValue);
+        }
+
+        private String getRequired(String name) {
+            String value = get(name, null);
+            if (value == null) {
+                throw new IllegalStateException("Required key property '" + name + "' not found");
+            }
+            return value;
+        }
+    }
+
+
+    /**
+     * Private key signing the access tokens, with its key id
+     *
+     * @param kid The key id, written to the kid header
+     * @param privateKey The private key
+     * @param algorithm The signature algorithm
+     */
+    public record SigningKey(String kid, PrivateKey privateKey, SignatureAlgorithm algorithm) {
+    }
+
+
+    /**
+     * Immutable snapshot of the derived keys, their parsers and the configuration they were derived from
+     */
+    private record KeyMaterial(
+            String accessSecret,
+            String refreshSecret,
+            String signingConfig,
+            SecretKey accessKey,
+            SecretKey refreshKey,
+            SigningKey accessSigningKey,
+            Map<String, Object> jwks,
+            JwtParser accessParser,
+            JwtParser refreshParser
+    ) {
+
+        /**
+         * Check if this snapshot was derived from the given configuration
+         *
+         * @param accessSecret The access secret
+         * @param refreshSecret The refresh secret
+         * @param signingConfig The signing key configuration
+         * @return boolean
+         */
+        private boolean isDerivedFrom(String accessSecret, String refreshSecret, String signingConfig) {
+            return Objects.equals(this.accessSecret, accessSecret)
+                    && Objects.equals(this.refreshSecret, refreshSecret)
+                    && Objects.equals(this.signingConfig, signingConfig);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import com.sasindu.springsecurity.entities.AppUser;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+
+/**
+ * Lightweight, immutable principal built directly from the claims of a verified access token.
+ * Used in claims-trusted mode so that authenticated requests do not load the user from the database,
+ * and as the snapshot of a user held by CachingUserDetailsService, so that a cached user is never a shared entity.
+ */
+@Getter
+public class JWTUserPrincipal implements UserDetails {
+    private final Long id;
+    private final String email;
+    private final List<SimpleGrantedAuthority> authorities;
+    private final boolean enabled;
+
+
+    /**
+     * Create the principal from the verified access token claims
+     *
+     * @param claims The verified access token claims
+     */
+    public JWTUserPrincipal(AccessTokenClaims claims) {
+        this.id = claims.userId();
+        this.email = claims.subject();
+        this.authorities = claims.roles().stream().map(SimpleGrantedAuthority::new).toList();
+        this.enabled = true;
+    }
+
+
+    /**
+     * Create an immutable snapshot of a loaded user
+     *
+     * @param user The loaded user
+     */
+    public JWTUserPrincipal(AppUser user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.authorities = user.getAuthorities().stream().map(authority -> new SimpleGrantedAuthority(authority.getAuthority())).toList();
+        this.enabled = user.isEnabled();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -2,32 +2,32 @@ package com.sasindu.springsecurity.security.jwt;
 
 
 import com.sasindu.springsecurity.entities.AppUser;
-import com.sasindu.springsecurity.helpers.HelperUtilMethods;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.InvalidKeyException;
-import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SecurityException;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 @Component
+@RequiredArgsConstructor
 public class JWTUtils {
-    @Value("${jwt.access.secret}")
-    private String accessTokenSecret;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final JWTKeyProvider _keyProvider;
 
     @Value("${jwt.access.expiration.minutes}")
     private String accessTokenExpirationMinutes;
 
-    @Value("${jwt.refresh.secret}")
-    private String refreshTokenSecret;
-
-    @Value("${jwt.refresh.expiration.days}")
-    private String refreshTokenExpirationDays;
+    @Value("${jwt.access.claims.compact:false}")
+    private boolean isCompactClaims;
 
 
     /**
@@ -37,32 +37,49 @@ public class JWTUtils {
      * @return The access token
      */
     public String generateAccessToken(AppUser user) {
+        return generateAccessToken(user, newTokenId());
+    }
+
+
+    /**
+     * Generate the access token with a given id
+     *
+     * @param user - The user object
+     * @param jti - The id of the token, see newTokenId
+     * @return The access token
+     */
+    public String generateAccessToken(AppUser user, String jti) {
         try {
-            Map<String, Object> claims = Map.of(
-                    "roles", List.of(user.getRole()),
-                    "userId", user.getId(),
-                    "email", user.getEmail()
-            );
+            Map<String, Object> claims = accessTokenClaims(user);
             long expirationTime = Long.parseLong(accessTokenExpirationMinutes) * 60 * 1000;
-            return generateToken(user.getUsername(), claims, expirationTime, accessKey());
-        } catch (NumberFormatException e) {
+            JwtBuilder builder = tokenBuilder(user.getUsername(), claims, jti, new Date(System.currentTimeMillis() + expirationTime));
+            JWTKeyProvider.SigningKey signingKey = _keyProvider.accessSigningKey();
+            if (signingKey == null) {
+                return builder.signWith(accessKey()).compact();
+            }
+            return builder.header().keyId(signingKey.kid()).and()
+                    .signWith(signingKey.privateKey(), signingKey.algorithm())
+                    .compact();
+        } catch (InvalidKeyException | NumberFormatException e) {
             throw new RuntimeException(e);
         }
     }
 
 
     /**
-     * Generate the refresh token
+     * Generate a refresh token of a token family
      *
      * @param user - The user object
+     * @param familyId - The id of the token family
+     * @param jti - The id of the token
+     * @param expiresAt - The expiration time of the token
      * @return The refresh token
      */
-    public String generateRefreshToken(AppUser user) {
+    public String generateRefreshToken(AppUser user, Long familyId, String jti, Instant expiresAt) {
+        Map<String, Object> claims = Map.of("userId", user.getId(), "fid", familyId);
         try {
-            Map<String, Object> claims = Map.of("userId", user.getId());
-            long expirationTime = Long.parseLong(refreshTokenExpirationDays) * 24 * 60 * 60 * 1000;
-            return generateToken(user.getUsername(), claims, expirationTime, refreshKey());
-        } catch (NumberFormatException e) {
+            return tokenBuilder(user.getUsername(), claims, jti, Date.from(expiresAt)).signWith(refreshKey()).compact();
+        } catch (InvalidKeyException e) {
             throw new RuntimeException(e);
         }
     }
@@ -70,15 +87,19 @@ public class JWTUtils {
 
 
     /**
-     * Check if the access token is valid
+     * Verify the access token once and return its claims
      * @param token The access token
-     * @return The validation status - boolean
+     * @return The verified claims
+     * @throws JwtException If the token is expired, malformed or its signature is invalid
      */
-    public boolean isAccessTokenValid(String token) {
+    public AccessTokenClaims verifyAccessToken(String token) {
         try {
-            return isTokenValid(token, accessKey());
+            Claims claims = _keyProvider.accessParser()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            return AccessTokenClaims.from(claims);
         }
-        catch(JwtException e){
+        catch(JwtException | IllegalArgumentException e){
             throw new JwtException(e.getMessage());
         }
         catch (Exception e) {
@@ -88,41 +109,14 @@ public class JWTUtils {
 
 
     /**
-     * Get the username from the access token
-     * @param token The access token
-     * @return The username
-     */
-    public String getEmailFromAccessToken(String token) {
-        try {
-            return extractClaimsFromToken(token, accessKey()).getSubject();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-
-    /**
-     * Get the user id from the refresh token
-     * @param token The refresh token
-     * @return The user id
-     */
-    public Long getUserIdFromRefreshToken(String token) {
-        try {
-            return extractClaimsFromToken(token, refreshKey()).get("userId", Long.class);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-
-    /**
-     * Check if the refresh token is valid
+     * Verify the refresh token and return its claims
      * @param token The refresh token
-     * @return The validation status - boolean
+     * @return The verified claims
+     * @throws JwtException If the token is expired, malformed or its signature is invalid
      */
-    public boolean isRefreshTokenValid(String token) {
+    public RefreshTokenClaims verifyRefreshToken(String token) {
         try {
-            return isTokenValid(token, refreshKey());
+            return RefreshTokenClaims.from(extractClaimsFromToken(token, _keyProvider.refreshParser()));
         }
         catch (JwtException e) {
             throw new JwtException(e.getMessage());
@@ -133,87 +127,97 @@ public class JWTUtils {
     }
 
 
+    /**
+     * Generate a random token id (jti) - 128 bits, URL-safe Base64 without padding (22 characters)
+     *
+     * @return The token id
+     */
+    public static String newTokenId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+
     //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
 
 
     /**
-     * Generate the token
+     * Get the custom claims of an access token in the configured profile.
+     * The compact profile drops the email (already the subject) and encodes the roles as a bitmask;
+     * users with a role outside AppUserRoles get the standard profile.
      *
-     * @param subject The subject of the token
-     * @param claims The claims of the token
-     * @param expirationTime The expiration time of the token
-     * @param key The key to be used for signing
-     * @return The generated token
+     * @param user The user object
+     * @return The claims
      */
-    private String generateToken(String subject, Map<String, Object> claims, long expirationTime, SecretKey key) {
-        try {
-            return Jwts.builder()
-                    .subject(subject)
-                    .claims(claims)
-                    .issuedAt(new Date(System.currentTimeMillis()))
-                    .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                    .signWith(key)
-                    .compact();
-        } catch (InvalidKeyException | NumberFormatException e) {
-            throw new RuntimeException(e);
+    private Map<String, Object> accessTokenClaims(AppUser user) {
+        List<String> roles = List.of(user.getRole());
+        if (isCompactClaims) {
+            Long roleBits = AccessTokenClaims.encodeRoles(roles);
+            if (roleBits != null) {
+                return Map.of(
+                        AccessTokenClaims.COMPACT_USER_ID, user.getId(),
+                        AccessTokenClaims.COMPACT_ROLES, roleBits
+                );
+            }
         }
+        return Map.of(
+                AccessTokenClaims.ROLES, roles,
+                AccessTokenClaims.USER_ID, user.getId(),
+                AccessTokenClaims.EMAIL, user.getEmail()
+        );
     }
 
 
     /**
-     * This method used to validate the token
+     * Build an unsigned token
      *
-     * @param token The token to be validated
-     * @param secretKey The secret key to be used for validation
-     *  @return The validation status - boolean
+     * @param subject The subject of the token
+     * @param claims The claims of the token
+     * @param jti The id of the token, null for none
+     * @param expiration The expiration time of the token
+     * @return The token builder, to be signed by the caller
      */
-    private boolean isTokenValid(String token, SecretKey secretKey) {
-        try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parse(token);
-            return true;
-        } catch (ExpiredJwtException | MalformedJwtException | SecurityException |IllegalArgumentException e) {
-            throw new JwtException(e.getMessage());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    private JwtBuilder tokenBuilder(String subject, Map<String, Object> claims, String jti, Date expiration) {
+        return Jwts.builder()
+                .subject(subject)
+                .claims(claims)
+                .id(jti)
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(expiration);
     }
 
 
-
     /**
-     * Create a Key object from the access secret
+     * Get the cached access key
      *
      * @return Key object
      */
     private SecretKey accessKey() {
-        return Keys.hmacShaKeyFor(HelperUtilMethods.hexStringToByteArray(accessTokenSecret));
+        return _keyProvider.accessKey();
     }
 
 
     /**
-     * Create a Key object from the refresh secret
+     * Get the cached refresh key
      *
      * @return Key object
      */
     private SecretKey refreshKey() {
-        return Keys.hmacShaKeyFor(HelperUtilMethods.hexStringToByteArray(refreshTokenSecret));
+        return _keyProvider.refreshKey();
     }
 
 
     /**
-     * Extract the username from the access token
+     * Extract the claims from the token
      *
-     * @param token The access token
-     * @return The username
+     * @param token The token
+     * @param parser The prebuilt parser verifying with the expected key
+     * @return The claims
      */
-    private Claims extractClaimsFromToken(String token, SecretKey key) {
+    private Claims extractClaimsFromToken(String token, JwtParser parser) {
         try {
-            return Jwts.parser()
-                    .verifyWith(key)
-                    .build()
+            return parser
                     .parseSignedClaims(token)
                     .getPayload();
         } catch (JwtException e) {
@@ -0,0 +1,32 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+
+/**
+ * Immutable view of the claims carried by a verified refresh token
+ *
+ * @param userId The id of the user
+ * @param familyId The id of the token family (login session)
+ * @param jti The id of the token
+ * @param expiresAt The expiration time of the token
+ */
+public record RefreshTokenClaims(Long userId, Long familyId, String jti, Instant expiresAt) {
+
+    /**
+     * Create the claims view from the parsed token payload
+     *
+     * @param claims The parsed claims
+     * @return RefreshTokenClaims
+     */
+    static RefreshTokenClaims from(Claims claims) {
+        return new RefreshTokenClaims(
+                claims.get("userId", Long.class),
+                claims.get("fid", Long.class),
+                claims.getId(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+        );
+    }
+}
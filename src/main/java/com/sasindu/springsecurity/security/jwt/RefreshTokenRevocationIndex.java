@@ -0,0 +1,121 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * In-memory index of the revoked refresh token families, consulted on every refresh in O(1).
+ * A bloom filter answers "not revoked" for the common case without touching the exact set; a positive
+ * answer is confirmed against the exact set of revoked family ids. Entries are kept until the family
+ * would have expired anyway, and prune() drops them and rebuilds the filter (a bloom filter cannot
+ * remove entries). The index is a fast path only - the database rotation still rejects revoked families,
+ * including families revoked by another instance.
+ */
+@Component
+public class RefreshTokenRevocationIndex {
+    private static final int FILTER_BITS = 1 << 20;
+    private static final int HASH_COUNT = 3;
+
+    private final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+    private volatile AtomicLongArray filter = new AtomicLongArray(FILTER_BITS / 64);
+
+
+    /**
+     * Add a revoked family
+     * @param familyId Long
+     * @param expiresAtMillis long - expiry of the latest refresh token of the family
+     */
+    public void revoke(Long familyId, long expiresAtMillis) {
+        // The exact set is updated before the filter, so a concurrent prune() never loses the entry
+        revoked.merge(familyId, expiresAtMillis, Math::max);
+        addToFilter(filter, familyId);
+    }
+
+
+    /**
+     * Check if a family is revoked
+     * @param familyId Long
+     * @return boolean
+     */
+    public boolean isRevoked(Long familyId) {
+        return mightContain(filter, familyId) && revoked.containsKey(familyId);
+    }
+
+
+    /**
+     * Drop the families whose refresh tokens have all expired and rebuild the filter
+     */
+    public void prune() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+
+        // Filled before it is published, so a concurrent isRevoked() never sees an empty filter. A family revoked
+        // while filling may have been added to the old filter only, the second pass adds it to the new one
+        AtomicLongArray rebuilt = new AtomicLongArray(FILTER_BITS / 64);
+        revoked.keySet().forEach(familyId -> addToFilter(rebuilt, familyId));
+        this.filter = rebuilt;
+        revoked.keySet().forEach(familyId -> addToFilter(rebuilt, familyId));
+    }
+
+
+    /**
+     * Get the number of revoked families in the index
+     * @return int
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static void addToFilter(AtomicLongArray bits, long familyId) {
+        long hash = mix(familyId);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = bitOf(hash, i);
+            long mask = 1L << (bit & 63);
+            int word = bit >>> 6;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                // retry until the bit is set
+            }
+        }
+    }
+
+
+    private static boolean mightContain(AtomicLongArray bits, long familyId) {
+        long hash = mix(familyId);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            int bit = bitOf(hash, i);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Double hashing - the i-th bit index is derived from the two halves of the mixed hash
+     */
+    private static int bitOf(long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % FILTER_BITS;
+    }
+
+
+    /**
+     * 64-bit finalizer of SplitMix64, spreads the sequential family ids over the filter
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
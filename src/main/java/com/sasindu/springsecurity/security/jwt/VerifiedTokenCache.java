@@ -0,0 +1,157 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.JwtParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+
+/**
+ * Optional cache of recently verified access tokens, keyed by the SHA-256 digest of the compact token.
+ * A cached entry never outlives the exp claim of its token, and it is ignored once the access key is rotated,
+ * so an expired token or a token signed with a retired key is always verified again (and rejected).
+ */
+@Component
+public class VerifiedTokenCache {
+    private final JWTUtils _jwtUtils;
+    private final JWTKeyProvider _keyProvider;
+    private final boolean isEnabled;
+    private final long maxTtlNanos;
+    private final Cache<String, CachedClaims> cache;
+
+
+    public VerifiedTokenCache(
+            JWTUtils jwtUtils,
+            JWTKeyProvider keyProvider,
+            @Value("${jwt.verified.cache.enabled:false}") boolean isEnabled,
+            @Value("${jwt.verified.cache.max.size:50000}") long maxSize,
+            @Value("${jwt.verified.cache.max.ttl.seconds:300}") long maxTtlSeconds
+    ) {
+        this._jwtUtils = jwtUtils;
+        this._keyProvider = keyProvider;
+        this.isEnabled = isEnabled;
+        this.maxTtlNanos = Duration.ofSeconds(maxTtlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+
+    /**
+     * Verify the access token - served from the cache if the same token was verified recently
+     *
+     * @param token The access token
+     * @return The verified claims
+     * @throws io.jsonwebtoken.JwtException If the token is expired, malformed or its signature is invalid
+     */
+    public AccessTokenClaims verify(String token) {
+        if (!isEnabled) {
+            return _jwtUtils.verifyAccessToken(token);
+        }
+
+        String key = digest(token);
+        JwtParser currentParser = _keyProvider.accessParser();
+        CachedClaims cached = cache.getIfPresent(key);
+        if (cached != null && cached.parser() == currentParser && !isExpired(cached.claims())) {
+            return cached.claims();
+        }
+
+        AccessTokenClaims claims = _jwtUtils.verifyAccessToken(token);
+        cache.put(key, new CachedClaims(claims, currentParser));
+        return claims;
+    }
+
+
+    /**
+     * Remove all the cached tokens
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+
+    /**
+     * Get the hit, miss and eviction counters of the cache
+     *
+     * @return CacheStats
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Check if the claims are expired
+     *
+     * @param claims The verified claims
+     * @return boolean
+     */
+    private static boolean isExpired(AccessTokenClaims claims) {
+        return claims.expiresAt() == null || !Instant.now().isBefore(claims.expiresAt());
+    }
+
+
+    /**
+     * Create the cache key of the token
+     *
+     * @param token The access token
+     * @return The Base64 encoded SHA-256 digest of the token
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Verified claims together with the parser that verified them
+     */
+    private record CachedClaims(AccessTokenClaims claims, JwtParser parser) {
+    }
+
+
+    /**
+     * Expire each entry at the exp claim of its token, capped by the configured max ttl
+     */
+    private class TokenExpiry implements Expiry<String, CachedClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedClaims value, long currentTime) {
+            Instant expiresAt = value.claims().expiresAt();
+            if (expiresAt == null) {
+                return 0;
+            }
+            long remainingNanos = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(0, Math.min(remainingNanos, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sasindu.springsecurity.abstractions.interfaces.IRateLimitStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Rate limit store kept in memory - the buckets live in a size-bounded Caffeine cache (striped, non-blocking
+ * reads) and each bucket is updated lock-free. Idle buckets are evicted after the idle time, which must be
+ * longer than the longest rule period since an evicted bucket comes back full.
+ */
+@Component
+@ConditionalOnProperty(name = "rate.limit.store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements IRateLimitStore {
+    private final Cache<String, TokenBucket> buckets;
+
+
+    public InMemoryRateLimitStore(
+            @Value("${rate.limit.store.max.size:100000}") long maxSize,
+            @Value("${rate.limit.store.idle.seconds:3600}") long idleSeconds
+    ) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .build();
+    }
+
+
+    @Override
+    public long tryConsume(String key, RateLimitRule rule) {
+        long now = System.nanoTime();
+        long waitNanos = buckets.get(key, k -> new TokenBucket(rule, now)).tryConsume(rule, now);
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+}
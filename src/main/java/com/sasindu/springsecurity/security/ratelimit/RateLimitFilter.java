@@ -0,0 +1,277 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sasindu.springsecurity.abstractions.interfaces.IRateLimitStore;
+import com.sasindu.springsecurity.helpers.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Rate limiting of the public auth endpoints, with a token bucket per client IP and per email.
+ * Runs before the security filter chain, so over-limit requests are rejected with 429 before any
+ * database, password hashing or SMTP work. Each endpoint is configured with:
+ * rate.limit.endpoint.{name}.path, rate.limit.endpoint.{name}.ip and rate.limit.endpoint.{name}.email,
+ * where the limits are written as capacity/periodSeconds and can be left empty.
+ * The email is read from the JSON body, which is buffered and replayed to the controller.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final IRateLimitStore _rateLimitStore;
+    private final boolean isEnabled;
+    private final Map<String, Endpoint> endpoints;
+    private final LongAdder rejectedCount = new LongAdder();
+
+
+    public RateLimitFilter(
+            IRateLimitStore rateLimitStore,
+            Environment environment,
+            @Value("${rate.limit.enabled:true}") boolean isEnabled,
+            @Value("${rate.limit.endpoints:}") String[] endpointNames
+    ) {
+        this._rateLimitStore = rateLimitStore;
+        this.isEnabled = isEnabled;
+        this.endpoints = Arrays.stream(endpointNames)
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(name -> new Endpoint(
+                        name,
+                        RateLimitRule.parse(environment.getProperty("rate.limit.endpoint." + name + ".ip")),
+                        RateLimitRule.parse(environment.getProperty("rate.limit.endpoint." + name + ".email"))
+                ))
+                .collect(Collectors.toUnmodifiableMap(
+                        endpoint -> environment.getRequiredProperty("rate.limit.endpoint." + endpoint.name() + ".path"),
+                        Function.identity()
+                ));
+
+        // Behind a proxy the remote address is the proxy, so all the clients would share one IP bucket
+        String forwardHeadersStrategy = environment.getProperty("server.forward-headers-strategy", "none");
+        if (isEnabled && "none".equalsIgnoreCase(forwardHeadersStrategy.trim())
+                && endpoints.values().stream().anyMatch(endpoint -> endpoint.ipRule() != null)) {
+            log.warn("Rate limiting by client IP without server.forward-headers-strategy - behind a proxy or load " +
+                    "balancer all the clients share the IP bucket of the proxy, set it to native or framework");
+        }
+    }
+
+
+    /**
+     * Get the number of rejected requests
+     * @return long
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+
+    /**
+     * Only POST requests to the configured endpoints are limited
+     *
+     * @param request The request object
+     * @return true if the request is not limited
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !isEnabled
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !endpoints.containsKey(pathOf(request));
+    }
+
+
+    /**
+     * Take a token from the IP bucket, then from the email bucket, and reject the request if either is empty
+     *
+     * @param request The request object
+     * @param response The response object
+     * @param filterChain The filter chain object
+     * @throws ServletException If an error occurs
+     * @throws IOException If an error occurs
+     */
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Endpoint endpoint = endpoints.get(pathOf(request));
+
+        if (endpoint.ipRule() != null) {
+            long waitMillis = _rateLimitStore.tryConsume(endpoint.name() + ":ip:" + request.getRemoteAddr(), endpoint.ipRule());
+            if (waitMillis > 0) {
+                reject(response, waitMillis);
+                return;
+            }
+        }
+
+        if (endpoint.emailRule() == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+            return;
+        }
+
+        String email = readEmail(body);
+        if (email != null) {
+            long waitMillis = _rateLimitStore.tryConsume(endpoint.name() + ":email:" + email, endpoint.emailRule());
+            if (waitMillis > 0) {
+                reject(response, waitMillis);
+                return;
+            }
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+
+    /**
+     * Read the normalized email from a JSON body
+     * @param body byte[]
+     * @return String - null if the body has no email
+     */
+    private static String readEmail(byte[] body) {
+        try {
+            JsonNode email = MAPPER.readTree(body).get("email");
+            return email == null || !email.isTextual() ? null : email.asText().trim().toLowerCase();
+        } catch (Exception e) {
+            // Malformed body, left to the controller to reject
+            return null;
+        }
+    }
+
+
+    /**
+     * Answer 429 with the time until the next token
+     * @param response HttpServletResponse
+     * @param waitMillis long
+     * @throws IOException If the response cannot be written
+     */
+    private void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        rejectedCount.increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        writeError(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please try again later");
+    }
+
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        MAPPER.writeValue(response.getOutputStream(), new ApiResponse(message, null, null));
+    }
+
+
+    /**
+     * A rate limited endpoint
+     */
+    private record Endpoint(String name, RateLimitRule ipRule, RateLimitRule emailRule) {
+    }
+
+
+    /**
+     * Request wrapper replaying the body that was read by the filter
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(@NonNull byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+            try {
+                return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+            } catch (UnsupportedEncodingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+
+/**
+ * Token bucket limit - at most capacity requests in a burst, refilled at capacity tokens per period
+ * @param capacity int
+ * @param periodSeconds long
+ */
+public record RateLimitRule(int capacity, long periodSeconds) {
+
+    public RateLimitRule {
+        if (capacity <= 0 || periodSeconds <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity and period must be positive");
+        }
+    }
+
+
+    /**
+     * Parse a rule written as capacity/periodSeconds, e.g. 5/60
+     * @param value String - null or blank for no rule
+     * @return RateLimitRule - null if there is no rule
+     */
+    public static RateLimitRule parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String[] parts = value.trim().split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid rate limit " + value + ", expected capacity/periodSeconds");
+        }
+        return new RateLimitRule(Integer.parseInt(parts[0].trim()), Long.parseLong(parts[1].trim()));
+    }
+
+
+    /**
+     * Get the refill rate
+     * @return double - tokens per nanosecond
+     */
+    public double tokensPerNano() {
+        return capacity / (periodSeconds * 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Lock-free token bucket - the state is an immutable snapshot swapped with compare-and-set, so concurrent
+ * requests for the same client never block each other. Tokens are refilled lazily on each attempt.
+ */
+public class TokenBucket {
+    private final AtomicReference<State> state;
+
+
+    public TokenBucket(RateLimitRule rule, long nowNanos) {
+        this.state = new AtomicReference<>(new State(rule.capacity(), nowNanos));
+    }
+
+
+    /**
+     * Take a token if one is available
+     * @param rule RateLimitRule
+     * @param nowNanos long - current System.nanoTime()
+     * @return long - 0 if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    public long tryConsume(RateLimitRule rule, long nowNanos) {
+        double rate = rule.tokensPerNano();
+        while (true) {
+            State current = state.get();
+            double elapsed = Math.max(0, nowNanos - current.refilledAt());
+            double tokens = Math.min(rule.capacity(), current.tokens() + elapsed * rate);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / rate);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, Math.max(nowNanos, current.refilledAt())))) {
+                return 0;
+            }
+        }
+    }
+
+
+    /**
+     * Tokens left at the time of the last refill
+     */
+    private record State(double tokens, long refilledAt) {
+    }
+}
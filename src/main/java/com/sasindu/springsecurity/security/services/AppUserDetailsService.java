@@ -1,9 +1,11 @@
 package com.sasindu.springsecurity.security.services;
 
+import com.sasindu.springsecurity.entities.AppUser;
 import com.sasindu.springsecurity.exceptions.NotFoundException;
 import com.sasindu.springsecurity.repository.IUserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,11 +13,11 @@ import org.springframework.stereotype.Service;
 import java.util.Optional;
 
 /**
- * Service to load user details
+ * Service to load user details, and to store the upgraded password hash after a successful login
  */
 @Service
 @RequiredArgsConstructor
-public class AppUserDetailsService implements UserDetailsService {
+public class AppUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final IUserRepository _userRepository;
 
 
@@ -35,4 +37,25 @@ public class AppUserDetailsService implements UserDetailsService {
             throw new NotFoundException("User not found");
         }
     }
+
+
+    /**
+     * Update the password hash of the user - called by DaoAuthenticationProvider after a successful login
+     * when the stored hash uses an outdated algorithm or cost. The provider calls it through CachingUserDetailsService,
+     * which evicts the user from the cache (see SecurityConfig.daoAuthenticationProvider)
+     *
+     * @param user The authenticated user, the AppUser loaded by loadUserByUsername
+     * @param newPassword The new password hash
+     * @return The updated user details
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        // The provider passes the user it just loaded, so it only has to be read again if it is not the entity
+        AppUser appUser = user instanceof AppUser loadedUser ? loadedUser : _userRepository.findByEmail(user.getUsername());
+        if (appUser == null) {
+            return user;
+        }
+        appUser.setPassword(newPassword);
+        return _userRepository.save(appUser);
+    }
 }
@@ -0,0 +1,37 @@
+package com.sasindu.springsecurity.security.services;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+
+/**
+ * Password encoder decorator that runs the hashing of the delegate on the PasswordHashingExecutor,
+ * covering registration, password changes and the DaoAuthenticationProvider login path alike
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder _delegate;
+    private final PasswordHashingExecutor _executor;
+
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this._delegate = delegate;
+        this._executor = executor;
+    }
+
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return _executor.execute(() -> _delegate.encode(rawPassword));
+    }
+
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return _executor.execute(() -> _delegate.matches(rawPassword, encodedPassword));
+    }
+
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return _delegate.upgradeEncoding(encodedPassword);
+    }
+}
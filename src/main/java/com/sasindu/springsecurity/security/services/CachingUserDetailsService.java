@@ -0,0 +1,130 @@
+package com.sasindu.springsecurity.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.security.jwt.JWTUserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+
+/**
+ * Caching decorator in front of AppUserDetailsService - keeps recently loaded users in a
+ * size-bounded (W-TinyLFU) cache with a short time to live, so that a hot user is loaded
+ * from the database once per TTL instead of once per request.
+ * The cache holds immutable JWTUserPrincipal snapshots, never the AppUser entity, so concurrent requests
+ * cannot modify or save a shared instance; services needing the entity load it (see AuthService.getAuthenticatedUser).
+ * Services modifying a user must call evict() so that the next request sees the change. Eviction is local to
+ * the instance: on other instances a change is seen after the TTL, except for password changes and deletions,
+ * which also revoke the access tokens of the user through the synced AccessTokenDenylist.
+ */
+@Service
+public class CachingUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    private final AppUserDetailsService _userDetailsService;
+    private final boolean isEnabled;
+    private final Cache<String, JWTUserPrincipal> cache;
+
+
+    public CachingUserDetailsService(
+            AppUserDetailsService userDetailsService,
+            @Value("${user.details.cache.enabled:false}") boolean isEnabled,
+            @Value("${user.details.cache.max.size:10000}") long maxSize,
+            @Value("${user.details.cache.ttl.seconds:60}") long ttlSeconds
+    ) {
+        this._userDetailsService = userDetailsService;
+        this.isEnabled = isEnabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+
+    /**
+     * Load user by username - served from the cache when present
+     *
+     * @param email The email of the user
+     * @return The user details, an immutable snapshot when the cache is enabled
+     * @throws UsernameNotFoundException If the user is not found
+     */
+    @Override
+    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        if (!isEnabled) {
+            return _userDetailsService.loadUserByUsername(email);
+        }
+        return cache.get(email, this::loadSnapshot);
+    }
+
+
+    /**
+     * Store the upgraded password hash after a successful login and evict the user
+     *
+     * @param user The authenticated user
+     * @param newPassword The new password hash
+     * @return The updated user details
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        try {
+            return _userDetailsService.updatePassword(user, newPassword);
+        } finally {
+            evict(user.getUsername());
+        }
+    }
+
+
+    /**
+     * Remove a user from the cache - must be called whenever the user is modified or deleted
+     *
+     * @param email The email of the user
+     */
+    public void evict(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+
+    /**
+     * Remove all users from the cache
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+
+    /**
+     * Get the hit, miss and eviction counters of the cache
+     *
+     * @return CacheStats
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Load the user from the database and take an immutable snapshot of it
+     *
+     * @param email The email of the user
+     * @return JWTUserPrincipal
+     */
+    private JWTUserPrincipal loadSnapshot(String email) {
+        UserDetails user = _userDetailsService.loadUserByUsername(email);
+        if (!(user instanceof AppUser appUser)) {
+            throw new IllegalStateException("Unexpected user details type " + user.getClass().getName());
+        }
+        return new JWTUserPrincipal(appUser);
+    }
+}
@@ -0,0 +1,159 @@
+package com.sasindu.springsecurity.security.services;
+
+import com.sasindu.springsecurity.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+
+/**
+ * Dedicated, bounded thread pool for password hashing. Hashing is CPU heavy on purpose, so running it
+ * on the request threads lets a login storm starve every other endpoint. Here at most a fixed number
+ * of hashes run at once and a bounded number wait; when the queue is full, or the wait is longer than
+ * the timeout, the request fails fast with ServiceUnavailableException (503) instead of piling up.
+ */
+@Component
+public class PasswordHashingExecutor {
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final LongAdder taskCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+
+    public PasswordHashingExecutor(
+            @Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue.capacity:64}") int queueCapacity,
+            @Value("${password.hashing.timeout.ms:5000}") long timeoutMillis
+    ) {
+        // Default to half of the cores, so that hashing never takes all the CPU
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> Thread.ofPlatform().name("password-hash-" + threadNumber.getAndIncrement()).daemon(true).unstarted(runnable),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.timeoutMillis = timeoutMillis;
+    }
+
+
+    /**
+     * Run a hashing task on the pool and wait for its result
+     * @param task Supplier<T> - the hashing work
+     * @return T
+     * @throws ServiceUnavailableException If the pool is saturated or the task did not complete in time
+     */
+    public <T> T execute(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - submittedAt);
+                try {
+                    return task.get();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    taskCount.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw new ServiceUnavailableException();
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCount.increment();
+            throw new ServiceUnavailableException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Stop the pool
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * Get the number of hashing tasks completed
+     * @return long
+     */
+    public long getTaskCount() {
+        return taskCount.sum();
+    }
+
+
+    /**
+     * Get the number of hashing tasks rejected because the queue was full
+     * @return long
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+
+    /**
+     * Get the number of hashing tasks abandoned because they did not complete within the timeout
+     * @return long
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+
+    /**
+     * Get the number of hashing tasks waiting in the queue
+     * @return int
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+
+    /**
+     * Get the average time a task waited in the queue, in milliseconds
+     * @return double
+     */
+    public double getAverageQueueWaitMillis() {
+        long tasks = taskCount.sum();
+        return tasks == 0 ? 0 : queueWaitNanos.sum() / 1_000_000.0 / tasks;
+    }
+
+
+    /**
+     * Get the average hashing time, in milliseconds
+     * @return double
+     */
+    public double getAverageHashMillis() {
+        long tasks = taskCount.sum();
+        return tasks == 0 ? 0 : hashNanos.sum() / 1_000_000.0 / tasks;
+    }
+}
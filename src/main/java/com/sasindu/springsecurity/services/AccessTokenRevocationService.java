@@ -0,0 +1,160 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.enums.AccessTokenRevocationType;
+import com.sasindu.springsecurity.abstractions.interfaces.IAccessTokenRevocationService;
+import com.sasindu.springsecurity.entities.AccessTokenRevocation;
+import com.sasindu.springsecurity.helpers.TimeOrderedIdGenerator;
+import com.sasindu.springsecurity.repository.IAccessTokenRevocationRepository;
+import com.sasindu.springsecurity.security.jwt.AccessTokenClaims;
+import com.sasindu.springsecurity.security.jwt.AccessTokenDenylist;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+
+/**
+ * Access token revocation - every revocation is written to the database and applied to the in-memory
+ * AccessTokenDenylist that JWTAuthFilter consults. The denylist is reloaded from the database on startup,
+ * and revocations made by other instances are picked up by a periodic sync using the time-ordered ids.
+ * The sync re-reads an overlap window, so rows committed late or written by a node with a skewed clock are
+ * not missed; applying a revocation twice is harmless.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessTokenRevocationService implements IAccessTokenRevocationService {
+    private static final long SYNC_OVERLAP_MILLIS = 60_000;
+
+    private final IAccessTokenRevocationRepository _accessTokenRevocationRepository;
+    private final AccessTokenDenylist _denylist;
+    private volatile long lastSyncMillis = System.currentTimeMillis();
+
+    @Value("${jwt.access.expiration.minutes}")
+    private String accessTokenExpirationMinutes;
+
+    @Value("${jwt.denylist.purge.batch.size:1000}")
+    private int purgeBatchSize;
+
+
+    @Override
+    public void revokeToken(AccessTokenClaims claims) {
+        try {
+            if (claims.jti() == null || claims.expiresAt() == null) {
+                return;
+            }
+            AccessTokenRevocation revocation = new AccessTokenRevocation();
+            revocation.setType(AccessTokenRevocationType.TOKEN);
+            revocation.setJti(claims.jti());
+            revocation.setUserId(claims.userId());
+            revocation.setExpiresAt(toLocalDateTime(claims.expiresAt()));
+            apply(_accessTokenRevocationRepository.save(revocation));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    @Override
+    public void revokeAllForUser(Long userId, String exemptJti) {
+        try {
+            // The iat claim has a one second precision, so the cut-off is truncated to the second and the tokens
+            // issued in that second are revoked too - except the one of the new session, by its id
+            Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            AccessTokenRevocation revocation = new AccessTokenRevocation();
+            revocation.setType(AccessTokenRevocationType.USER);
+            revocation.setUserId(userId);
+            revocation.setJti(exemptJti);
+            revocation.setRevokedBefore(toLocalDateTime(before));
+            revocation.setExpiresAt(toLocalDateTime(before.plus(Long.parseLong(accessTokenExpirationMinutes), ChronoUnit.MINUTES)));
+            apply(_accessTokenRevocationRepository.save(revocation));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    /**
+     * Load the revocations still in effect into the denylist
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDenylist() {
+        _accessTokenRevocationRepository.findByExpiresAtAfter(LocalDateTime.now()).forEach(this::apply);
+    }
+
+
+    /**
+     * Apply the revocations made by other instances since the last sync
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.denylist.sync.interval.ms:10000}",
+            fixedDelayString = "${jwt.denylist.sync.interval.ms:10000}"
+    )
+    public void syncDenylist() {
+        try {
+            long syncStartedAt = System.currentTimeMillis();
+            long fromId = TimeOrderedIdGenerator.firstIdAt(lastSyncMillis - SYNC_OVERLAP_MILLIS);
+            _accessTokenRevocationRepository.findByIdGreaterThanOrderByIdAsc(fromId).forEach(this::apply);
+            lastSyncMillis = syncStartedAt;
+        } catch (Exception e) {
+            log.warn("Failed to sync the access token denylist: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Drop the expired revocations from the denylist and the database, in bounded batches
+     */
+    @Scheduled(fixedDelayString = "${jwt.denylist.purge.interval.ms:300000}")
+    public void purgeExpired() {
+        try {
+            _denylist.prune();
+            LocalDateTime now = LocalDateTime.now();
+            int deleted;
+            do {
+                deleted = _accessTokenRevocationRepository.deleteExpiredBatch(now, purgeBatchSize);
+            } while (deleted == purgeBatchSize);
+        } catch (Exception e) {
+            log.warn("Failed to purge the expired access token revocations: {}", e.getMessage());
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Add a revocation to the denylist
+     * @param revocation AccessTokenRevocation
+     */
+    private void apply(AccessTokenRevocation revocation) {
+        long expiresAt = toEpochMillis(revocation.getExpiresAt());
+        if (revocation.getType() == AccessTokenRevocationType.TOKEN) {
+            _denylist.revokeToken(revocation.getJti(), expiresAt);
+        } else {
+            _denylist.revokeUser(revocation.getUserId(), toEpochMillis(revocation.getRevokedBefore()), revocation.getJti(), expiresAt);
+        }
+    }
+
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -7,7 +7,10 @@ import com.sasindu.springsecurity.abstractions.dto.request.auth.ResetPasswordReq
 import com.sasindu.springsecurity.abstractions.dto.request.auth.VerifyEmailRequestDto;
 import com.sasindu.springsecurity.abstractions.enums.AppUserRoles;
 import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
+import com.sasindu.springsecurity.abstractions.interfaces.IAccessTokenRevocationService;
 import com.sasindu.springsecurity.abstractions.interfaces.IAuthService;
+import com.sasindu.springsecurity.abstractions.interfaces.IRefreshTokenService;
 import com.sasindu.springsecurity.abstractions.interfaces.IUserOtpService;
 import com.sasindu.springsecurity.constants.ApplicationConstants;
 import com.sasindu.springsecurity.entities.AppUser;
@@ -18,7 +21,11 @@ import com.sasindu.springsecurity.exceptions.ForbiddenException;
 import com.sasindu.springsecurity.exceptions.UnAuthorizedException;
 import com.sasindu.springsecurity.helpers.HelperUtilMethods;
 import com.sasindu.springsecurity.repository.IUserRepository;
+import com.sasindu.springsecurity.security.jwt.JWTUserPrincipal;
 import com.sasindu.springsecurity.security.jwt.JWTUtils;
+import com.sasindu.springsecurity.security.jwt.RefreshTokenClaims;
+import com.sasindu.springsecurity.security.services.CachingUserDetailsService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -46,6 +53,9 @@ public class AuthService implements IAuthService {
     private final AuthenticationManager _authenticationManager;
     private final EmailNotificationService _emailNotificationService;
     private final IUserOtpService _userOtpService;
+    private final CachingUserDetailsService _userDetailsCache;
+    private final IRefreshTokenService _refreshTokenService;
+    private final IAccessTokenRevocationService _accessTokenRevocationService;
 
     @Value("${application.environment}")
     String environment;
@@ -90,6 +100,24 @@ public class AuthService implements IAuthService {
 
 
 
+    /**
+     * Revoke an access token - invalid or expired tokens are ignored
+     *
+     * @param access The access token
+     */
+    private void revokeAccessToken(String access) {
+        if (access == null || access.isBlank()) {
+            return;
+        }
+        try {
+            _accessTokenRevocationService.revokeToken(_jwtUtils.verifyAccessToken(access));
+        } catch (JwtException e) {
+            // Nothing to revoke
+        }
+    }
+
+
+
     /**
      * Register a new user
      *
@@ -163,16 +191,7 @@ public class AuthService implements IAuthService {
                 throw new ForbiddenException("Please verify your email to login");
             }
 
-            String access = _jwtUtils.generateAccessToken(user);
-            String refresh = _jwtUtils.generateRefreshToken(user);
-
-            setCookies(
-                    access,
-                    refresh,
-                    response,
-                    Integer.parseInt(jwtAccessExpireStringMinutes) * 60,
-                    Integer.parseInt(refreshTokenExpireStringDays) * 60 * 60 * 24
-            );
+            startSession(user, response);
         }
         catch(InternalAuthenticationServiceException | BadCredentialsException e){
             throw new UnAuthorizedException("Invalid credentials");
@@ -190,7 +209,38 @@ public class AuthService implements IAuthService {
 
 
     /**
-     * Get the authenticated user
+     * Start a new session - issue an access token and a new refresh token family in the cookies
+     *
+     * @param user The user
+     * @param response The response object
+     * @return The id (jti) of the new access token
+     */
+    @Override
+    public String startSession(AppUser user, HttpServletResponse response) {
+        try{
+            String jti = JWTUtils.newTokenId();
+            String access = _jwtUtils.generateAccessToken(user, jti);
+            String refresh = _refreshTokenService.createFamily(user);
+
+            setCookies(
+                    access,
+                    refresh,
+                    response,
+                    Integer.parseInt(jwtAccessExpireStringMinutes) * 60,
+                    Integer.parseInt(refreshTokenExpireStringDays) * 60 * 60 * 24
+            );
+            return jti;
+        } catch (RuntimeException e){
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Get the authenticated user - in claims-trusted mode the principal only carries the token claims,
+     * so the full user is loaded from the database
      *
      * @return The authenticated user
      */
@@ -198,6 +248,10 @@ public class AuthService implements IAuthService {
     public AppUser getAuthenticatedUser() {
         try{
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if(auth.getPrincipal() instanceof JWTUserPrincipal principal){
+                return _userRepository.findById(principal.getId())
+                        .orElseThrow(() -> new UnAuthorizedException("User not found"));
+            }
             return (AppUser) auth.getPrincipal();
         } catch (RuntimeException e){
             throw e;
@@ -208,7 +262,7 @@ public class AuthService implements IAuthService {
 
 
     /**
-     * Refresh the access token
+     * Refresh the access token - the refresh token is rotated, see RefreshTokenService
      *
      * @param request The request object
      * @param response The response object
@@ -218,15 +272,11 @@ public class AuthService implements IAuthService {
         try{
             String refresh = HelperUtilMethods.getCookieFromRequest(request, "refresh");
 
-            if(!_jwtUtils.isRefreshTokenValid(refresh)){
-                throw new ForbiddenException("Invalid refresh token");
-            }
-
-            Long userId = _jwtUtils.getUserIdFromRefreshToken(refresh);
-            AppUser user = _userRepository.findById(userId)
+            RefreshTokenClaims claims = _refreshTokenService.verify(refresh);
+            AppUser user = _userRepository.findById(claims.userId())
                     .orElseThrow(() -> new ForbiddenException("Invalid refresh token"));
+            String newRefresh = _refreshTokenService.rotate(claims, user);
             String access = _jwtUtils.generateAccessToken(user);
-            String newRefresh = _jwtUtils.generateRefreshToken(user);
 
             setCookies(
                     access,
@@ -244,13 +294,16 @@ public class AuthService implements IAuthService {
 
 
     /**
-     * Logout - Clear the cookies in the response
+     * Logout - Revoke the access token and the refresh token family of the session and clear the cookies in the response
      *
+     * @param request The request object
      * @param response The response object
      */
     @Override
-    public void logout(HttpServletResponse response) {
+    public void logout(HttpServletRequest request, HttpServletResponse response) {
         try{
+            _refreshTokenService.revokeFamily(HelperUtilMethods.getCookieFromRequest(request, "refresh"));
+            revokeAccessToken(HelperUtilMethods.getCookieFromRequest(request, "access"));
             setCookies(
                     null,
                     null,
@@ -284,17 +337,12 @@ public class AuthService implements IAuthService {
             String otp = HelperUtilMethods.generateOtp();
 
             // set the otp
-            UserOtp foundOtp = _userOtpService.findByTypeAndUserId(OtpEmailType.EMAIL, user.getId());
-            if(foundOtp != null){
-                _userOtpService.deleteByTypeAndUserId(OtpEmailType.EMAIL, user.getId());
-            }
             UserOtp userOtp = new UserOtp();
             userOtp.setOtpProperties(ApplicationConstants.EMAIL_OTP_EXPIRATION_MINUTES, otp, OtpEmailType.EMAIL, user);
             _userOtpService.saveOtp(userOtp);
 
-            // send the email and save the user
+            // send the email
             _emailNotificationService.sendEmailVerificationOtpEmail(email, otp);
-            _userRepository.save(user);
         } catch (RuntimeException e){
             throw e;
         } catch (Exception e) {
@@ -321,17 +369,12 @@ public class AuthService implements IAuthService {
             String otp = HelperUtilMethods.generateOtp();
 
             // set the otp
-            UserOtp foundOtp = _userOtpService.findByTypeAndUserId(OtpEmailType.PASSWORD, user.getId());
-            if(foundOtp != null){
-                _userOtpService.deleteByTypeAndUserId(OtpEmailType.PASSWORD, user.getId());
-            }
             UserOtp userOtp = new UserOtp();
             userOtp.setOtpProperties(ApplicationConstants.PASSWORD_OTP_EXPIRATION_MINUTES, otp, OtpEmailType.PASSWORD, user);
             _userOtpService.saveOtp(userOtp);
 
-            // send the email and save the user
+            // send the email
             _emailNotificationService.sendPasswordResetOtpEmail(email, otp);
-            _userRepository.save(user);
         } catch (RuntimeException e){
             throw e;
         } catch (Exception e) {
@@ -355,16 +398,17 @@ public class AuthService implements IAuthService {
                 throw new BadRequestException("Email is already verified");
             }
 
-            UserOtp foundOtp = _userOtpService.findByTypeAndUserId(OtpEmailType.EMAIL, user.getId());
-            if(foundOtp == null){
+            // the code and the expiry are checked with a single lookup
+            OtpVerificationResult verification = _userOtpService.verifyOtp(OtpEmailType.EMAIL, user.getId(), request.getOtp());
+            if(verification == OtpVerificationResult.NOT_FOUND){
                 throw new BadRequestException("No OTP found, Please request a new OTP");
             }
 
-            if(foundOtp.isOtpCorrect(request.getOtp())){
+            if(verification == OtpVerificationResult.INVALID){
                 throw new BadRequestException("Invalid OTP");
             }
 
-            if(foundOtp.isOtpExpired()){
+            if(verification == OtpVerificationResult.EXPIRED){
                 _userOtpService.deleteByTypeAndUserId(OtpEmailType.EMAIL, user.getId());
                 throw new BadRequestException("OTP has expired");
             }
@@ -376,6 +420,7 @@ public class AuthService implements IAuthService {
             // update the user and save
             user.setIsEmailVerified(true);
             _userRepository.save(user);
+            _userDetailsCache.evict(user.getEmail());
         } catch (RuntimeException e){
             throw e;
         } catch (Exception e) {
@@ -395,16 +440,17 @@ public class AuthService implements IAuthService {
             AppUser user = Optional.ofNullable(_userRepository.findByEmail(request.getEmail()))
                     .orElseThrow(() -> new BadRequestException("Invalid email"));
 
-            UserOtp foundOtp = _userOtpService.findByTypeAndUserId(OtpEmailType.PASSWORD, user.getId());
-            if(foundOtp == null){
+            // the code and the expiry are checked with a single lookup
+            OtpVerificationResult verification = _userOtpService.verifyOtp(OtpEmailType.PASSWORD, user.getId(), request.getOtp());
+            if(verification == OtpVerificationResult.NOT_FOUND){
                 throw new BadRequestException("No OTP found, Please request a new OTP");
             }
 
-            if(foundOtp.isOtpCorrect(request.getOtp())){
+            if(verification == OtpVerificationResult.INVALID){
                 throw new BadRequestException("Invalid OTP");
             }
 
-            if(foundOtp.isOtpExpired()){
+            if(verification == OtpVerificationResult.EXPIRED){
                 _userOtpService.deleteByTypeAndUserId(OtpEmailType.PASSWORD, user.getId());
                 throw new BadRequestException("OTP has expired");
             }
@@ -422,6 +468,9 @@ public class AuthService implements IAuthService {
 
             user.setPassword(_passwordEncoder.encode(request.getPassword()));
             _userRepository.save(user);
+            _userDetailsCache.evict(user.getEmail());
+            _refreshTokenService.revokeAllForUser(user.getId());
+            _accessTokenRevocationService.revokeAllForUser(user.getId(), null);
         } catch (RuntimeException e){
             throw e;
         } catch (Exception e) {
@@ -439,8 +488,11 @@ public class AuthService implements IAuthService {
     @Override
     public boolean checkLoggedInUserWithId(Long id) {
         try{
-         AppUser loggedInUser = getAuthenticatedUser();
-            return Objects.equals(loggedInUser.getId(), id);
+            Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            Long loggedInUserId = principal instanceof JWTUserPrincipal jwtPrincipal
+                    ? jwtPrincipal.getId()
+                    : ((AppUser) principal).getId();
+            return Objects.equals(loggedInUserId, id);
         } catch (RuntimeException e){
             throw e;
         } catch (Exception e) {
@@ -475,8 +527,8 @@ public class AuthService implements IAuthService {
     @Override
     public boolean isAuthenticatedUserAdmin() {
         try{
-            AppUser loggedInUser = getAuthenticatedUser();
-            return loggedInUser.getAuthorities()
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            return authentication.getAuthorities()
                     .stream()
                     .anyMatch(auth -> "ROLE_ADMIN".equals(auth.getAuthority()));
         } catch (RuntimeException e) {
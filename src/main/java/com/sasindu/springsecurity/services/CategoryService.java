@@ -3,22 +3,33 @@ package com.sasindu.springsecurity.services;
 import com.sasindu.springsecurity.abstractions.dto.request.category.AddCategoryRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.category.UpdateCategoryRequestDto;
 import com.sasindu.springsecurity.abstractions.interfaces.ICategoryService;
+import com.sasindu.springsecurity.entities.CatalogueDeletion;
 import com.sasindu.springsecurity.entities.Category;
 import com.sasindu.springsecurity.exceptions.ConflictException;
 import com.sasindu.springsecurity.exceptions.NotFoundException;
+import com.sasindu.springsecurity.helpers.CatalogueVersion;
+import com.sasindu.springsecurity.helpers.CategoryCatalogue;
+import com.sasindu.springsecurity.helpers.ProductSearchIndex;
+import com.sasindu.springsecurity.repository.ICatalogueDeletionRepository;
 import com.sasindu.springsecurity.repository.ICategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
- * Service class to handle category related operations
+ * Service class to handle category related operations - reads are served from the in-memory category catalogue
  */
 @Service
 @RequiredArgsConstructor
 public class CategoryService implements ICategoryService {
     private final ICategoryRepository _categoryRepository;
+    private final CategoryCatalogue _categoryCatalogue;
+    private final CatalogueVersion _catalogueVersion;
+    private final ProductSearchIndex _productSearchIndex;
+    private final ICatalogueDeletionRepository _catalogueDeletionRepository;
 
 
     /**
@@ -29,13 +40,22 @@ public class CategoryService implements ICategoryService {
     @Override
     public Category createCategory(AddCategoryRequestDto request) {
         try {
-            if(_categoryRepository.existsByName(request.getName())) {
+            if(_categoryCatalogue.existsByName(request.getName())) {
                 throw new ConflictException("Category already exists");
             }
 
             Category category = new Category();
             category.setName(request.getName().toLowerCase());
-            return _categoryRepository.save(category);
+            Category savedCategory;
+            try {
+                savedCategory = _categoryRepository.save(category);
+            } catch (DataIntegrityViolationException e) {
+                // Created concurrently by another request or instance
+                throw new ConflictException("Category already exists");
+            }
+            _categoryCatalogue.put(savedCategory);
+            _catalogueVersion.increment();
+            return savedCategory;
         } catch (RuntimeException e) {
             throw e;
         }
@@ -57,12 +77,16 @@ public class CategoryService implements ICategoryService {
             Category category = _categoryRepository.findById(categoryId)
                     .orElseThrow(() -> new NotFoundException("Category not found"));
 
-            if (_categoryRepository.existsByName(request.getName())) {
+            if (_categoryCatalogue.existsByName(request.getName())) {
                 throw new ConflictException("Category already exists");
             }
 
             category.setName(request.getName().toLowerCase());
-            return _categoryRepository.save(category);
+            Category savedCategory = _categoryRepository.save(category);
+            _categoryCatalogue.put(savedCategory);
+            _catalogueVersion.increment();
+            _productSearchIndex.renameCategory(savedCategory.getId(), savedCategory.getName());
+            return savedCategory;
         } catch (RuntimeException e) {
             throw e;
         }
@@ -80,7 +104,7 @@ public class CategoryService implements ICategoryService {
     @Override
     public Category getCategoryById(Long categoryId) {
         try {
-            return _categoryRepository.findById(categoryId)
+            return Optional.ofNullable(_categoryCatalogue.findById(categoryId))
                     .orElseThrow(() -> new NotFoundException("Category not found"));
         } catch (RuntimeException e) {
             throw e;
@@ -99,10 +123,7 @@ public class CategoryService implements ICategoryService {
     @Override
     public List<Category> getAllCategories(String search) {
         try {
-            if(search == null || search.isEmpty()) {
-                return _categoryRepository.findAll();
-            }
-            return _categoryRepository.findAllByNameContaining(search);
+            return _categoryCatalogue.findAll(search);
         } catch (RuntimeException e) {
             throw e;
         }
@@ -122,6 +143,13 @@ public class CategoryService implements ICategoryService {
             Category category = _categoryRepository.findById(categoryId)
                     .orElseThrow(() -> new NotFoundException("Category not found"));
             _categoryRepository.delete(category);
+            // Recorded for the search index of the other instances, which drop the products of the category
+            CatalogueDeletion deletion = new CatalogueDeletion();
+            deletion.setCategoryId(categoryId);
+            _catalogueDeletionRepository.save(deletion);
+            _categoryCatalogue.remove(categoryId);
+            _productSearchIndex.removeCategory(categoryId);
+            _catalogueVersion.increment();
         } catch (RuntimeException e) {
             throw e;
         }
@@ -139,7 +167,7 @@ public class CategoryService implements ICategoryService {
     @Override
     public Category getCategoryByName(String name) {
         try {
-            return _categoryRepository.findByName(name);
+            return _categoryCatalogue.findByName(name);
         } catch (RuntimeException e) {
             throw e;
         }
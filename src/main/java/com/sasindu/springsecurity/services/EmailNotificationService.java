@@ -1,7 +1,6 @@
 package com.sasindu.springsecurity.services;
 
 import com.sasindu.springsecurity.constants.ApplicationConstants;
-import com.sasindu.springsecurity.helpers.EmailService;
 import com.sasindu.springsecurity.helpers.EmailTemplateService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -11,13 +10,13 @@ import java.util.Map;
 
 
 /**
- * Service class to handle email notifications
+ * Service class to handle email notifications - emails are queued and delivered asynchronously
  */
 @RequiredArgsConstructor
 @Service
 public class EmailNotificationService {
     private final EmailTemplateService _emailTemplateService;
-    private final EmailService _emailService;
+    private final EmailOutboxService _emailOutboxService;
 
     /**
      * Sends an email to the user with the verification code
@@ -32,7 +31,7 @@ public class EmailNotificationService {
             params.put("otp", otp);
 
             String htmlContent = _emailTemplateService.generateTemplate(ApplicationConstants.PASSWORD_RESET_TEMPLATE, params);
-            _emailService.sendHtmlEmail(to, subject, htmlContent);
+            _emailOutboxService.enqueue(to, subject, htmlContent);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -51,7 +50,7 @@ public class EmailNotificationService {
             params.put("otp", otp);
 
             String htmlContent = _emailTemplateService.generateTemplate(ApplicationConstants.EMAIL_VERIFY_TEMPLATE, params);
-            _emailService.sendHtmlEmail(to, subject, htmlContent);
+            _emailOutboxService.enqueue(to, subject, htmlContent);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -0,0 +1,256 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.enums.EmailOutboxStatus;
+import com.sasindu.springsecurity.entities.EmailOutbox;
+import com.sasindu.springsecurity.helpers.EmailService;
+import com.sasindu.springsecurity.repository.IEmailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Asynchronous email delivery - emails are persisted to the outbox table and handed to a bounded
+ * in-memory queue served by a small pool of workers, so the request thread never waits for SMTP.
+ * Each worker accumulates the queued emails for a short window and sends them as one batch over a
+ * single SMTP connection. Failed emails are retried with exponential backoff and moved to the dead
+ * letter state after the max attempts. Emails that did not fit in the queue, are due for retry or
+ * were pending at shutdown are picked up again by the scheduled outbox poller.
+ * Several instances can share the outbox: a worker claims each email with a conditional update before sending it,
+ * so an email is sent by one worker only. The claim is a lease - the emails of a worker that died while sending
+ * become due again when the lease expires.
+ */
+@Slf4j
+@Service
+public class EmailOutboxService {
+    private final IEmailOutboxRepository _emailOutboxRepository;
+    private final EmailService _emailService;
+    private final BlockingQueue<Long> queue;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean isRunning = true;
+
+    @Value("${email.outbox.workers:2}")
+    private int workerCount;
+
+    @Value("${email.outbox.batch.size:50}")
+    private int batchSize;
+
+    @Value("${email.outbox.batch.window.ms:200}")
+    private long batchWindowMillis;
+
+    @Value("${email.outbox.max.attempts:5}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.retry.base.delay.seconds:30}")
+    private long retryBaseDelaySeconds;
+
+    // Must be longer than the time to send a batch, or an email may be claimed again while it is being sent
+    @Value("${email.outbox.claim.lease.seconds:300}")
+    private long claimLeaseSeconds;
+
+
+    public EmailOutboxService(
+            IEmailOutboxRepository emailOutboxRepository,
+            EmailService emailService,
+            @Value("${email.outbox.queue.capacity:1000}") int queueCapacity
+    ) {
+        this._emailOutboxRepository = emailOutboxRepository;
+        this._emailService = emailService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+
+    /**
+     * Start the workers
+     */
+    @PostConstruct
+    public void start() {
+        // Platform threads also in the virtual-thread mode - the SMTP transport reads the server replies inside
+        // synchronized methods, which would pin a carrier thread for the whole send (see VirtualThreadsLoadTest)
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform().name("email-outbox-" + i).daemon(true).start(this::runWorker));
+        }
+    }
+
+
+    /**
+     * Persist the email to the outbox and queue it for delivery
+     * @param to - Email address of the recipient
+     * @param subject - Subject of the email
+     * @param htmlContent - HTML body of the email
+     */
+    public void enqueue(String to, String subject, String htmlContent) {
+        try {
+            EmailOutbox email = _emailOutboxRepository.save(new EmailOutbox(to, subject, htmlContent));
+            dispatch(email.getId());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    /**
+     * Queue the emails that are due for delivery - retries, queue overflow, emails left over from a restart
+     * and emails whose claim expired. Emails queued here may also be queued by other instances, the claim decides who sends them
+     */
+    @Scheduled(
+            initialDelayString = "${email.outbox.poll.interval.ms:30000}",
+            fixedDelayString = "${email.outbox.poll.interval.ms:30000}"
+    )
+    public void pollOutbox() {
+        try {
+            _emailOutboxRepository
+                    .findTop100ByStatusInAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                            List.of(EmailOutboxStatus.PENDING, EmailOutboxStatus.SENDING),
+                            LocalDateTime.now()
+                    )
+                    .forEach(email -> dispatch(email.getId()));
+        } catch (Exception e) {
+            log.error("Failed to poll the email outbox: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Stop the workers on shutdown - pending emails stay in the outbox
+     */
+    @PreDestroy
+    public void shutdown() {
+        isRunning = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Hand the email to the workers, unless it is already queued or being sent
+     * @param id - Id of the outbox email
+     */
+    private void dispatch(Long id) {
+        if (!inFlight.add(id)) {
+            return;
+        }
+        if (!queue.offer(id)) {
+            // Queue is full, the outbox poller will pick the email up later
+            inFlight.remove(id);
+        }
+    }
+
+
+    /**
+     * Worker loop - wait for an email, collect more for up to the batch window, then send the batch
+     */
+    private void runWorker() {
+        while (isRunning) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                List<Long> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Long next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Email outbox worker failed: {}", e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Send a batch of emails - claim them, delete the sent emails from the outbox and record the failures
+     * @param ids - Ids of the outbox emails
+     */
+    private void deliver(List<Long> ids) {
+        try {
+            List<Long> claimed = claim(ids);
+            if (claimed.isEmpty()) {
+                return;
+            }
+            List<EmailOutbox> emails = _emailOutboxRepository.findAllById(claimed)
+                    .stream()
+                    .filter(email -> email.getStatus() == EmailOutboxStatus.SENDING)
+                    .toList();
+            if (emails.isEmpty()) {
+                return;
+            }
+
+            Map<Integer, Exception> failures = _emailService.sendHtmlEmails(emails.stream()
+                    .map(email -> new EmailService.HtmlEmail(email.getToEmail(), email.getSubject(), email.getHtmlContent()))
+                    .toList());
+
+            List<EmailOutbox> sent = new ArrayList<>();
+            List<EmailOutbox> failed = new ArrayList<>();
+            for (int i = 0; i < emails.size(); i++) {
+                EmailOutbox email = emails.get(i);
+                Exception failure = failures.get(i);
+                if (failure == null) {
+                    sent.add(email);
+                    continue;
+                }
+                email.recordFailure(failure.getMessage(), maxAttempts, retryBaseDelaySeconds);
+                failed.add(email);
+                if (email.getStatus() == EmailOutboxStatus.DEAD) {
+                    log.warn("Email {} to {} moved to dead letter after {} attempts: {}", email.getId(), email.getToEmail(), email.getAttempts(), failure.getMessage());
+                }
+            }
+
+            _emailOutboxRepository.deleteAllInBatch(sent);
+            _emailOutboxRepository.saveAll(failed);
+        } catch (Exception e) {
+            log.error("Failed to deliver emails {}: {}", ids, e.getMessage());
+        } finally {
+            ids.forEach(inFlight::remove);
+        }
+    }
+
+
+    /**
+     * Claim the emails of a batch - emails claimed by a worker of another instance are skipped
+     * @param ids - Ids of the outbox emails
+     * @return Ids of the claimed emails
+     */
+    private List<Long> claim(List<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusSeconds(claimLeaseSeconds);
+        List<Long> claimed = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (_emailOutboxRepository.claim(id, now, leaseUntil) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+}
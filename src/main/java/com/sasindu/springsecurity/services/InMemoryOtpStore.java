@@ -0,0 +1,278 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
+import com.sasindu.springsecurity.abstractions.interfaces.IOtpStore;
+import com.sasindu.springsecurity.entities.UserOtp;
+import com.sasindu.springsecurity.helpers.HelperUtilMethods;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * OTP store kept in a concurrent map, so sending and verifying an OTP does not touch the database.
+ * Expired OTPs are removed by a timer wheel: each OTP is queued in the slot of the second it expires,
+ * and the sweeper only visits the slots of the seconds that passed since its previous run.
+ * Only an HMAC of each OTP is kept, so verify() compares hashes.
+ * The OTPs are lost on restart unless otp.store.memory.snapshot.file and otp.store.memory.snapshot.key are set,
+ * in which case their hashes are written to that file on shutdown and read back on startup. The key must be kept
+ * secret and stay the same across restarts; without it the 6 character codes could be brute-forced from the hashes.
+ * Only suitable for a single instance - use the jpa store when several instances share the users.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "otp.store.type", havingValue = "memory")
+public class InMemoryOtpStore implements IOtpStore {
+    private static final int WHEEL_SIZE = 4096;
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    private static final int GENERATED_KEY_LENGTH = 32;
+
+    private final Map<OtpKey, OtpEntry> entries = new ConcurrentHashMap<>();
+    private final List<Queue<OtpKey>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final String snapshotFile;
+    private final SecretKeySpec hashKey;
+    private final boolean isSnapshotEnabled;
+    private long lastSweptSecond = currentSecond();
+
+
+    public InMemoryOtpStore(
+            @Value("${otp.store.memory.snapshot.file:}") String snapshotFile,
+            @Value("${otp.store.memory.snapshot.key:}") String snapshotKey
+    ) {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+        this.snapshotFile = snapshotFile;
+        this.isSnapshotEnabled = !snapshotFile.isBlank() && !snapshotKey.isBlank();
+        if (!snapshotFile.isBlank() && snapshotKey.isBlank()) {
+            log.warn("otp.store.memory.snapshot.key is not set, the OTPs will not be saved to {}", snapshotFile);
+        }
+
+        byte[] key = new byte[GENERATED_KEY_LENGTH];
+        if (snapshotKey.isBlank()) {
+            // The hashes only need to be verifiable by this process
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = HelperUtilMethods.hexStringToByteArray(snapshotKey);
+        }
+        this.hashKey = new SecretKeySpec(key, HASH_ALGORITHM);
+    }
+
+
+    @Override
+    public OtpVerificationResult verify(OtpEmailType type, Long userId, String otp) {
+        OtpKey key = new OtpKey(type, userId);
+        OtpEntry entry = entries.get(key);
+        if (entry == null) {
+            return OtpVerificationResult.NOT_FOUND;
+        }
+        if (otp == null || !MessageDigest.isEqual(entry.otpHash(), hash(key, otp))) {
+            return OtpVerificationResult.INVALID;
+        }
+        return LocalDateTime.now().isAfter(entry.expires()) ? OtpVerificationResult.EXPIRED : OtpVerificationResult.VALID;
+    }
+
+
+    @Override
+    public UserOtp put(UserOtp userOtp) {
+        OtpKey key = new OtpKey(userOtp.getType(), userOtp.getUser().getId());
+        store(key, new OtpEntry(hash(key, userOtp.getOtp()), userOtp.getExpires()));
+        return userOtp;
+    }
+
+
+    @Override
+    public void delete(OtpEmailType type, Long userId) {
+        entries.remove(new OtpKey(type, userId));
+    }
+
+
+    /**
+     * Get the number of stored OTPs, including expired OTPs not swept yet
+     * @return int
+     */
+    public int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Remove the OTPs that expired since the previous sweep
+     */
+    @Scheduled(fixedDelayString = "${otp.store.memory.sweep.interval.ms:1000}")
+    public synchronized void sweep() {
+        long now = currentSecond();
+        // Visiting more than a full turn would only revisit the same slots
+        long from = Math.max(lastSweptSecond + 1, now - WHEEL_SIZE + 1);
+        for (long second = from; second <= now; second++) {
+            sweepSlot(second);
+        }
+        lastSweptSecond = now;
+    }
+
+
+    /**
+     * Load the snapshot written on the previous shutdown
+     */
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!isSnapshotEnabled || !Files.exists(Path.of(snapshotFile))) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (String line : Files.readAllLines(Path.of(snapshotFile), StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length != 4) {
+                    continue;
+                }
+                LocalDateTime expires = LocalDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(fields[3])), ZoneId.systemDefault());
+                if (expires.isAfter(now)) {
+                    store(new OtpKey(OtpEmailType.valueOf(fields[0]), Long.parseLong(fields[1])), new OtpEntry(Base64.getDecoder().decode(fields[2]), expires));
+                }
+            }
+            Files.delete(Path.of(snapshotFile));
+            log.info("Loaded {} OTPs from {}", entries.size(), snapshotFile);
+        } catch (Exception e) {
+            log.warn("Failed to load the OTP snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Write the hashes of the OTPs that are still valid to the snapshot file
+     */
+    @PreDestroy
+    public void saveSnapshot() {
+        if (!isSnapshotEnabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(snapshotFile), StandardCharsets.UTF_8)) {
+            for (Map.Entry<OtpKey, OtpEntry> entry : entries.entrySet()) {
+                if (entry.getValue().expires().isAfter(now)) {
+                    writer.write(entry.getKey().type() + "," + entry.getKey().userId() + "," + Base64.getEncoder().encodeToString(entry.getValue().otpHash()) + "," + entry.getValue().expiresAtSecond());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to save the OTP snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Store an OTP and queue it in the slot of its expiry second
+     * @param key OtpKey
+     * @param entry OtpEntry
+     */
+    private void store(OtpKey key, OtpEntry entry) {
+        entries.put(key, entry);
+        wheel.get(slotOf(entry.expiresAtSecond())).add(key);
+    }
+
+
+    /**
+     * Remove the expired OTPs queued in the slot of a second.
+     * OTPs expiring in a later turn of the wheel are queued again, keys whose OTP was replaced or
+     * deleted are dropped since the new OTP is queued in its own slot.
+     * @param second long - epoch second
+     */
+    private void sweepSlot(long second) {
+        Queue<OtpKey> slot = wheel.get(slotOf(second));
+        List<OtpKey> laterTurns = new ArrayList<>();
+        OtpKey key;
+        while ((key = slot.poll()) != null) {
+            OtpEntry entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.expiresAtSecond() <= second) {
+                entries.remove(key, entry);
+            } else if (slotOf(entry.expiresAtSecond()) == slotOf(second)) {
+                laterTurns.add(key);
+            }
+        }
+        slot.addAll(laterTurns);
+    }
+
+
+    /**
+     * Hash an OTP with the key of the store - the type and user are part of the hash, so that a hash from
+     * the snapshot cannot be moved to another user
+     * @param key OtpKey
+     * @param otp String
+     * @return byte[]
+     */
+    private byte[] hash(OtpKey key, String otp) {
+        try {
+            Mac mac = Mac.getInstance(HASH_ALGORITHM);
+            mac.init(hashKey);
+            return mac.doFinal((key.type() + ":" + key.userId() + ":" + otp).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to hash the OTP", e);
+        }
+    }
+
+
+    private static int slotOf(long second) {
+        return (int) Math.floorMod(second, (long) WHEEL_SIZE);
+    }
+
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+
+    /**
+     * Key of an OTP
+     */
+    private record OtpKey(OtpEmailType type, Long userId) {
+    }
+
+
+    /**
+     * Stored OTP hash
+     */
+    private record OtpEntry(byte[] otpHash, LocalDateTime expires) {
+
+        /**
+         * Get the expiry as an epoch second, rounded up so that the OTP is never swept early
+         * @return long
+         */
+        private long expiresAtSecond() {
+            Instant instant = expires.atZone(ZoneId.systemDefault()).toInstant();
+            return instant.getNano() == 0 ? instant.getEpochSecond() : instant.getEpochSecond() + 1;
+        }
+    }
+}
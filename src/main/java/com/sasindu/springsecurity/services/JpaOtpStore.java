@@ -0,0 +1,122 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
+import com.sasindu.springsecurity.abstractions.interfaces.IOtpStore;
+import com.sasindu.springsecurity.entities.UserOtp;
+import com.sasindu.springsecurity.repository.IUserOtpRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * OTP store backed by the user_otp table, shared by all the instances of the application.
+ * Expired rows are purged by a scheduled job in bounded batches, so that the purge never holds
+ * long locks on the table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "otp.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaOtpStore implements IOtpStore {
+    private final IUserOtpRepository _userOtpRepository;
+    private final LongAdder purgedCount = new LongAdder();
+    private final LongAdder purgeRunCount = new LongAdder();
+    private final LongAdder purgeNanos = new LongAdder();
+
+    @Value("${otp.store.jpa.purge.batch.size:1000}")
+    private int purgeBatchSize;
+
+
+    @Override
+    public OtpVerificationResult verify(OtpEmailType type, Long userId, String otp) {
+        UserOtp userOtp = _userOtpRepository.findByTypeAndUserId(type, userId);
+        if (userOtp == null) {
+            return OtpVerificationResult.NOT_FOUND;
+        }
+        if (!Objects.equals(userOtp.getOtp(), otp)) {
+            return OtpVerificationResult.INVALID;
+        }
+        return userOtp.isOtpExpired() ? OtpVerificationResult.EXPIRED : OtpVerificationResult.VALID;
+    }
+
+
+    @Override
+    @Transactional
+    public UserOtp put(UserOtp userOtp) {
+        _userOtpRepository.deleteByTypeAndUserId(userOtp.getType(), userOtp.getUser().getId());
+        return _userOtpRepository.save(userOtp);
+    }
+
+
+    @Override
+    @Transactional
+    public void delete(OtpEmailType type, Long userId) {
+        _userOtpRepository.deleteByTypeAndUserId(type, userId);
+    }
+
+
+    /**
+     * Delete the expired OTPs, one bounded batch per transaction until no expired rows are left
+     */
+    @Scheduled(fixedDelayString = "${otp.store.jpa.purge.interval.ms:300000}")
+    public void purgeExpired() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        long purged = 0;
+        try {
+            int deleted;
+            do {
+                deleted = _userOtpRepository.deleteExpiredBatch(now, purgeBatchSize);
+                purged += deleted;
+            } while (deleted == purgeBatchSize);
+        } catch (Exception e) {
+            log.warn("Failed to purge the expired OTPs: {}", e.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            purgedCount.add(purged);
+            purgeRunCount.increment();
+            purgeNanos.add(elapsed);
+            if (purged > 0) {
+                log.info("Purged {} expired OTPs in {} ms", purged, elapsed / 1_000_000);
+            }
+        }
+    }
+
+
+    /**
+     * Get the number of expired OTPs purged
+     * @return long
+     */
+    public long getPurgedCount() {
+        return purgedCount.sum();
+    }
+
+
+    /**
+     * Get the number of purge runs
+     * @return long
+     */
+    public long getPurgeRunCount() {
+        return purgeRunCount.sum();
+    }
+
+
+    /**
+     * Get the average duration of a purge run in milliseconds
+     * @return double
+     */
+    public double getAveragePurgeMillis() {
+        long runs = purgeRunCount.sum();
+        return runs == 0 ? 0 : purgeNanos.sum() / 1_000_000.0 / runs;
+    }
+}
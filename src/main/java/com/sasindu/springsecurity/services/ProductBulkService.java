@@ -0,0 +1,309 @@
+package com.sasindu.springsecurity.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sasindu.springsecurity.abstractions.dto.request.category.AddCategoryRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.request.product.AddProductRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductImportResponseDto;
+import com.sasindu.springsecurity.abstractions.interfaces.ICategoryService;
+import com.sasindu.springsecurity.abstractions.interfaces.IProductBulkService;
+import com.sasindu.springsecurity.entities.Category;
+import com.sasindu.springsecurity.exceptions.BadRequestException;
+import com.sasindu.springsecurity.exceptions.ConflictException;
+import com.sasindu.springsecurity.helpers.CatalogueVersion;
+import com.sasindu.springsecurity.helpers.HelperUtilMethods;
+import com.sasindu.springsecurity.helpers.ProductSearchIndex;
+import com.sasindu.springsecurity.helpers.TimeOrderedIdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+
+
+/**
+ * Bulk product import and export - both stream the data, so memory use does not depend on the number of products.
+ * Imports are parsed line by line and inserted with JDBC batches; categories are resolved once per import from
+ * an in-memory map. Ids are assigned up front by TimeOrderedIdGenerator, so the inserted rows can be added
+ * to the search index without reading them back. Exports are written to the response while the rows are read from a streaming cursor.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductBulkService implements IProductBulkService {
+    private static final String FORMAT_CSV = "csv";
+    private static final String FORMAT_NDJSON = "ndjson";
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_NAME_LENGTH = 200;
+
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO products (id, name, category_id, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String EXPORT_PRODUCTS_SQL = """
+            SELECT p.id, p.name, c.name AS category_name
+            FROM products p JOIN categories c ON c.id = p.category_id
+            ORDER BY p.id
+            """;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectWriter ROW_WRITER = MAPPER.writer();
+
+    private final JdbcTemplate _jdbcTemplate;
+    private final ICategoryService _categoryService;
+    private final ProductSearchIndex _productSearchIndex;
+    private final CatalogueVersion _catalogueVersion;
+
+    // Same node id as the one given to Hibernate, so that the imported rows share the sequence of the node
+    @Value("${id.generator.node:0}")
+    private long idGeneratorNode;
+
+
+    /**
+     * Import products from a CSV (with a name,category header) or NDJSON ({"name", "categoryName"} per line) stream
+     * @param input InputStream
+     * @param format String
+     * @return ProductImportResponseDto
+     */
+    @Override
+    public ProductImportResponseDto importProducts(InputStream input, String format) {
+        ImportState state = new ImportState();
+        try {
+            boolean isCsv = parseFormat(format);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            TimeOrderedIdGenerator.NodeSequence idSequence = TimeOrderedIdGenerator.forNode(idGeneratorNode);
+
+            int[] columns = null;
+            if (isCsv) {
+                String header = reader.readLine();
+                if (header == null) {
+                    throw new BadRequestException("CSV header is missing");
+                }
+                columns = parseCsvHeader(header);
+            }
+
+            String line;
+            long lineNumber = isCsv ? 1 : 0;
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                AddProductRequestDto row;
+                try {
+                    row = isCsv ? parseCsvRow(line, columns) : MAPPER.readValue(line, AddProductRequestDto.class);
+                    validateRow(row);
+                } catch (Exception e) {
+                    state.skip(lineNumber, e.getMessage());
+                    continue;
+                }
+
+                Category category = resolveCategory(row.getCategoryName(), state);
+                if (category == null) {
+                    state.skip(lineNumber, "Category could not be created or found, please retry");
+                    continue;
+                }
+                batch.add(new Object[]{idSequence.nextId(), row.getName(), category.getId(), category.getName()});
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, state);
+                }
+            }
+            flush(batch, state);
+            return new ProductImportResponseDto(state.imported, state.skipped, state.errors);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        } finally {
+            // The batches flushed before a failure are committed, so the catalogue changed either way
+            if (state.imported > 0) {
+                _catalogueVersion.increment();
+            }
+        }
+    }
+
+
+    /**
+     * Export all products ordered by id, as CSV (id,name,category) or NDJSON ({"id", "name", "categoryName"} per line)
+     * @param output OutputStream
+     * @param format String
+     */
+    @Override
+    public void exportProducts(OutputStream output, String format) {
+        try {
+            boolean isCsv = parseFormat(format);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            if (isCsv) {
+                writer.write("id,name,category\n");
+            }
+
+            _jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(EXPORT_PRODUCTS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        // Integer.MIN_VALUE makes the MySQL driver stream the rows instead of buffering the whole result
+                        statement.setFetchSize(Integer.MIN_VALUE);
+                        return statement;
+                    },
+                    resultSet -> {
+                        try {
+                            long id = resultSet.getLong("id");
+                            String name = resultSet.getString("name");
+                            String category = resultSet.getString("category_name");
+                            if (isCsv) {
+                                writer.write(id + "," + HelperUtilMethods.toCsvField(name) + "," + HelperUtilMethods.toCsvField(category) + "\n");
+                            } else {
+                                writer.write(ROW_WRITER.writeValueAsString(Map.of("id", id, "name", name, "categoryName", category)));
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+            );
+            writer.flush();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Check the requested format
+     * @param format String
+     * @return true for csv, false for ndjson
+     */
+    private static boolean parseFormat(String format) {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return true;
+        }
+        if (FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            return false;
+        }
+        throw new BadRequestException("Unsupported format, use csv or ndjson");
+    }
+
+
+    /**
+     * Find the name and category columns in the CSV header
+     * @param header String
+     * @return int[] - index of the name column and index of the category column
+     */
+    private static int[] parseCsvHeader(String header) {
+        List<String> names = HelperUtilMethods.parseCsvLine(header).stream().map(name -> name.trim().toLowerCase()).toList();
+        int nameColumn = names.indexOf("name");
+        int categoryColumn = names.contains("category") ? names.indexOf("category") : names.indexOf("categoryname");
+        if (nameColumn < 0 || categoryColumn < 0) {
+            throw new BadRequestException("CSV header must contain name and category columns");
+        }
+        return new int[]{nameColumn, categoryColumn};
+    }
+
+
+    /**
+     * Parse a CSV row into an AddProductRequestDto
+     * @param line String
+     * @param columns int[] - index of the name column and index of the category column
+     * @return AddProductRequestDto
+     */
+    private static AddProductRequestDto parseCsvRow(String line, int[] columns) {
+        List<String> fields = HelperUtilMethods.parseCsvLine(line);
+        if (fields.size() <= Math.max(columns[0], columns[1])) {
+            throw new BadRequestException("Missing columns");
+        }
+        AddProductRequestDto row = new AddProductRequestDto();
+        row.setName(fields.get(columns[0]).trim());
+        row.setCategoryName(fields.get(columns[1]).trim());
+        return row;
+    }
+
+
+    /**
+     * Validate an imported row
+     * @param row AddProductRequestDto
+     */
+    private static void validateRow(AddProductRequestDto row) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            throw new BadRequestException("Name is required");
+        }
+        if (row.getName().length() > MAX_NAME_LENGTH) {
+            throw new BadRequestException("Name is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        if (row.getCategoryName() == null || row.getCategoryName().isBlank()) {
+            throw new BadRequestException("Category is required");
+        }
+    }
+
+
+    /**
+     * Get a category by name, creating the category if it does not exist.
+     * Each category is resolved once per import.
+     * @param categoryName String
+     * @param state ImportState
+     * @return Category - null if it was created concurrently but cannot be read yet, it is looked up again for the next row
+     */
+    private Category resolveCategory(String categoryName, ImportState state) {
+        return state.categories.computeIfAbsent(categoryName.toLowerCase(), name -> {
+            Category category = _categoryService.getCategoryByName(name);
+            if (category == null) {
+                try {
+                    AddCategoryRequestDto request = new AddCategoryRequestDto();
+                    request.setName(name);
+                    category = _categoryService.createCategory(request);
+                } catch (ConflictException e) {
+                    // Created concurrently by another request
+                    category = _categoryService.getCategoryByName(name);
+                }
+            }
+            return category;
+        });
+    }
+
+
+    /**
+     * Insert the batch with a single JDBC batch statement, add the inserted products to the search index and clear it
+     * @param batch List<Object[]> - id, name, category id and category name of each product
+     * @param state ImportState
+     */
+    private void flush(List<Object[]> batch, ImportState state) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        _jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, batch.stream().map(row -> new Object[]{row[0], row[1], row[2], now}).toList());
+        for (Object[] row : batch) {
+            _productSearchIndex.index((Long) row[0], (String) row[1], (Long) row[2], (String) row[3]);
+        }
+        state.imported += batch.size();
+        batch.clear();
+    }
+
+
+    /**
+     * Progress of an import
+     */
+    private static class ImportState {
+        private final Map<String, Category> categories = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private long imported;
+        private long skipped;
+
+        private void skip(long lineNumber, String error) {
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + lineNumber + ": " + error);
+            }
+        }
+    }
+}
@@ -4,22 +4,71 @@ package com.sasindu.springsecurity.services;
 import com.sasindu.springsecurity.abstractions.dto.request.category.AddCategoryRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.product.AddProductRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.product.UpdateProductRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductPageResponseDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
 import com.sasindu.springsecurity.abstractions.interfaces.ICategoryService;
 import com.sasindu.springsecurity.abstractions.interfaces.IProductService;
+import com.sasindu.springsecurity.entities.CatalogueDeletion;
 import com.sasindu.springsecurity.entities.Category;
 import com.sasindu.springsecurity.entities.Product;
+import com.sasindu.springsecurity.exceptions.BadRequestException;
+import com.sasindu.springsecurity.exceptions.ConflictException;
 import com.sasindu.springsecurity.exceptions.NotFoundException;
+import com.sasindu.springsecurity.exceptions.ServiceUnavailableException;
+import com.sasindu.springsecurity.helpers.CatalogueVersion;
+import com.sasindu.springsecurity.helpers.HelperUtilMethods;
+import com.sasindu.springsecurity.helpers.ProductSearchIndex;
+import com.sasindu.springsecurity.helpers.TimeOrderedIdGenerator;
+import com.sasindu.springsecurity.repository.ICatalogueDeletionRepository;
+import com.sasindu.springsecurity.repository.ICategoryRepository;
 import com.sasindu.springsecurity.repository.IProductRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Service class to handle product related operations - searches by name are served by the in-memory search index.
+ * The index of each instance is refreshed periodically with the products changed and the products and categories
+ * deleted since the last refresh, read by their time of change and the time-ordered ids of the deletion records.
+ * The refresh re-reads an overlap window, so rows committed late or written by a node with a skewed clock are not missed.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductService implements IProductService {
     private final IProductRepository _productRepository;
     private final ICategoryService _categoryService;
+    private final ProductSearchIndex _productSearchIndex;
+    private final CatalogueVersion _catalogueVersion;
+    private final ICatalogueDeletionRepository _catalogueDeletionRepository;
+    private final ICategoryRepository _categoryRepository;
+
+    private static final int SEARCH_INDEX_REBUILD_BATCH_SIZE = 1000;
+    private static final long SEARCH_INDEX_SYNC_OVERLAP_MILLIS = 60_000;
+    // The deletion records are kept this long, an index that was not refreshed for longer is rebuilt
+    private static final long CATALOGUE_DELETION_RETENTION_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final int CATALOGUE_DELETION_PURGE_BATCH_SIZE = 1000;
+    private static final String RANKED_CURSOR = "r";
+    private static final String ID_CURSOR = "i";
+    private static final long MAX_SEARCH_SCORE = 4;
+
+    @Value("${product.page.default.size:20}")
+    private int defaultPageSize;
+
+    @Value("${product.page.max.size:100}")
+    private int maxPageSize;
+
+    private volatile long lastSearchIndexSyncMillis;
 
 
     /**
@@ -30,21 +79,17 @@ public class ProductService implements IProductService {
     @Override
     public Product addProduct(AddProductRequestDto request) {
         try {
-            // Get the category by name
-            Category cat = _categoryService.getCategoryByName(request.getCategoryName());
-
-            // If category does not exist, create a new category
-            if(cat == null){
-                AddCategoryRequestDto requestDto = new AddCategoryRequestDto();
-                requestDto.setName(request.getCategoryName());
-                cat = _categoryService.createCategory(requestDto);
-            }
+            // Get the category by name, creating it if it does not exist
+            Category cat = resolveCategory(request.getCategoryName());
 
             // Create a new product and save it and return
             Product product = new Product();
             product.setName(request.getName());
             product.setCategory(cat);
-            return _productRepository.save(product);
+            Product savedProduct = _productRepository.save(product);
+            indexProduct(savedProduct, cat);
+            _catalogueVersion.increment();
+            return savedProduct;
         } catch (RuntimeException e) {
             throw e;
         }
@@ -68,20 +113,16 @@ public class ProductService implements IProductService {
             Product product = _productRepository.findById(id)
                     .orElseThrow(() -> new NotFoundException("Product not found"));
 
-            // Get the category by name
-            Category category = _categoryService.getCategoryByName(request.getCategoryName());
-
-            // If category does not exist, create a new category
-            if(category == null){
-                AddCategoryRequestDto requestDto = new AddCategoryRequestDto();
-                requestDto.setName(request.getCategoryName());
-                category = _categoryService.createCategory(requestDto);
-            }
+            // Get the category by name, creating it if it does not exist
+            Category category = resolveCategory(request.getCategoryName());
 
             // Update the product and save it and return
             product.setName(request.getName());
             product.setCategory(category);
-            return _productRepository.save(product);
+            Product savedProduct = _productRepository.save(product);
+            indexProduct(savedProduct, category);
+            _catalogueVersion.increment();
+            return savedProduct;
         } catch (RuntimeException e) {
             throw e;
         }
@@ -102,8 +143,13 @@ public class ProductService implements IProductService {
             Product product = _productRepository.findById(id)
                     .orElseThrow(() -> new NotFoundException("Product not found"));
 
-            // Delete the product
+            // Delete the product, and record the deletion for the search index of the other instances
             _productRepository.delete(product);
+            CatalogueDeletion deletion = new CatalogueDeletion();
+            deletion.setProductId(id);
+            _catalogueDeletionRepository.save(deletion);
+            _productSearchIndex.remove(id);
+            _catalogueVersion.increment();
         } catch (RuntimeException e) {
             throw e;
         }
@@ -132,32 +178,231 @@ public class ProductService implements IProductService {
 
 
     /**
-     * Get all products - if name and category are null, return all products
+     * Get a page of products - if name and category are null, return all products
      * if name is not null and category is null, return all products by name containing
      * if name is null and category is not null, return all products by category name containing
      * if name and category are not null, return all products by name and category name containing
+     * Searches by name are served by the in-memory search index, ranked by relevance, once it has caught up with
+     * the current catalogue version; until then, and for names shorter than a trigram, they are read from
+     * the database like the other listings.
+     * Other listings are read from the database by id, with a single query joining the category.
+     * Both are paged by keyset, so the cost of a page does not depend on its position. The cursor records
+     * the keyset it holds, and the following pages are always read the way the first one was
      *
      * @param name String
      * @param category String
-     * @return List<Product>
+     * @param cursor String - nextCursor of the previous page, null for the first page
+     * @param size Integer - requested page size
+     * @return ProductPageResponseDto
      */
     @Override
-    public List<Product> getAllProducts(String name, String category) {
+    public ProductPageResponseDto getAllProducts(String name, String category, String cursor, Integer size) {
         try {
-            if(name == null && category == null) {
-                return _productRepository.findAll();
-            }
-            if(name != null && category == null) {
-                return _productRepository.findAllByNameContaining(name);
-            }
-            if(name == null) {
-                return _productRepository.findAllByCategoryNameContaining(category);
+            int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+            String cursorKind = HelperUtilMethods.cursorKind(cursor);
+
+            boolean isRankedSearch = cursorKind == null
+                    ? name != null && ProductSearchIndex.isIndexedQuery(name) && _productSearchIndex.isSyncedWith(_catalogueVersion.current().version())
+                    : cursorKind.equals(RANKED_CURSOR);
+            if (isRankedSearch) {
+                return searchProducts(name, category, cursor, pageSize);
             }
-            return _productRepository.findAllByNameContainingAndCategoryNameContaining(name, category);
+
+            // The cursor holds the id of the last product of the previous page
+            long[] keys = HelperUtilMethods.decodeCursor(cursor, ID_CURSOR, Long.MAX_VALUE);
+            long afterId = keys == null ? 0L : keys[0];
+            Slice<ProductResponseDto> page = _productRepository.findPageAfterId(afterId, name, category, PageRequest.of(0, pageSize));
+            List<ProductResponseDto> items = page.getContent();
+            String nextCursor = page.hasNext() ? HelperUtilMethods.encodeCursor(ID_CURSOR, items.getLast().getId()) : null;
+            return new ProductPageResponseDto(items, nextCursor, page.hasNext());
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
     }
+
+
+    /**
+     * Rebuild the product search index from the database, reading the products in keyset pages.
+     * The current index keeps serving searches until the rebuilt one replaces it
+     */
+    @Override
+    public void rebuildSearchIndex() {
+        try {
+            _productSearchIndex.beginRebuild();
+        } catch (IllegalStateException e) {
+            throw new ConflictException(e.getMessage());
+        }
+        try {
+            // Read before the products, the rebuilt index contains at least the changes up to this version
+            long version = _catalogueVersion.current().version();
+            long startedAt = System.currentTimeMillis();
+            long afterId = 0L;
+            Slice<ProductResponseDto> page;
+            do {
+                page = _productRepository.findPageAfterId(afterId, null, null, PageRequest.of(0, SEARCH_INDEX_REBUILD_BATCH_SIZE));
+                for (ProductResponseDto product : page.getContent()) {
+                    _productSearchIndex.addToRebuild(product.getId(), product.getName(), product.getCategory().getId(), product.getCategory().getName());
+                    afterId = product.getId();
+                }
+            } while (page.hasNext());
+            _productSearchIndex.completeRebuild();
+            _productSearchIndex.markSynced(version);
+            lastSearchIndexSyncMillis = Math.max(lastSearchIndexSyncMillis, startedAt);
+        } catch (RuntimeException e) {
+            _productSearchIndex.abortRebuild();
+            throw e;
+        } catch (Exception e) {
+            _productSearchIndex.abortRebuild();
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    /**
+     * Apply the changes made by the other instances since the last refresh to the search index,
+     * when the catalogue version moved past the version the index has caught up with
+     */
+    @Scheduled(
+            initialDelayString = "${product.search.index.refresh.interval.ms:1000}",
+            fixedDelayString = "${product.search.index.refresh.interval.ms:1000}"
+    )
+    public void refreshSearchIndex() {
+        try {
+            if (!_productSearchIndex.isReady()) {
+                // Not built yet, the initial rebuild reads everything
+                return;
+            }
+            long version = _catalogueVersion.current().version();
+            if (_productSearchIndex.isSyncedWith(version)) {
+                return;
+            }
+            long startedAt = System.currentTimeMillis();
+            long since = lastSearchIndexSyncMillis - SEARCH_INDEX_SYNC_OVERLAP_MILLIS;
+            if (startedAt - since > CATALOGUE_DELETION_RETENTION_MILLIS) {
+                // The deletions made since the last refresh may be purged already
+                rebuildSearchIndex();
+                return;
+            }
+
+            // Products added or updated, in keyset pages
+            LocalDateTime updatedSince = LocalDateTime.ofInstant(Instant.ofEpochMilli(since), ZoneId.systemDefault());
+            long afterId = 0L;
+            Slice<ProductResponseDto> page;
+            do {
+                page = _productRepository.findPageUpdatedSince(updatedSince, afterId, PageRequest.of(0, SEARCH_INDEX_REBUILD_BATCH_SIZE));
+                for (ProductResponseDto product : page.getContent()) {
+                    _productSearchIndex.index(product.getId(), product.getName(), product.getCategory().getId(), product.getCategory().getName());
+                    afterId = product.getId();
+                }
+            } while (page.hasNext());
+
+            // Products and categories deleted
+            for (CatalogueDeletion deletion : _catalogueDeletionRepository.findByIdGreaterThanOrderByIdAsc(TimeOrderedIdGenerator.firstIdAt(since))) {
+                if (deletion.getProductId() != null) {
+                    _productSearchIndex.remove(deletion.getProductId());
+                } else {
+                    _productSearchIndex.removeCategory(deletion.getCategoryId());
+                }
+            }
+
+            // Categories renamed
+            _productSearchIndex.renameCategories(_categoryRepository.findAll()
+                    .stream()
+                    .collect(Collectors.toMap(Category::getId, Category::getName)));
+
+            _productSearchIndex.markSynced(version);
+            lastSearchIndexSyncMillis = startedAt;
+        } catch (Exception e) {
+            log.warn("Failed to refresh the product search index: {}", e.getMessage());
+        }
+    }
+
+
+    /**
+     * Delete the deletion records older than the retention, in bounded batches
+     */
+    @Scheduled(fixedDelayString = "${catalogue.deletions.purge.interval.ms:3600000}")
+    public void purgeCatalogueDeletions() {
+        try {
+            long beforeId = TimeOrderedIdGenerator.firstIdAt(System.currentTimeMillis() - CATALOGUE_DELETION_RETENTION_MILLIS);
+            int deleted;
+            do {
+                deleted = _catalogueDeletionRepository.deleteBatchBefore(beforeId, CATALOGUE_DELETION_PURGE_BATCH_SIZE);
+            } while (deleted == CATALOGUE_DELETION_PURGE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("Failed to purge the catalogue deletions: {}", e.getMessage());
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Get a page of the products whose name contains the query from the search index, ranked by relevance
+     * @param name String
+     * @param category String
+     * @param cursor String - ranked cursor of the previous page, null for the first page
+     * @param pageSize int
+     * @return ProductPageResponseDto
+     */
+    private ProductPageResponseDto searchProducts(String name, String category, String cursor, int pageSize) {
+        if (name == null) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (!_productSearchIndex.isReady()) {
+            throw new ServiceUnavailableException("The product search index is not ready, please try again later");
+        }
+
+        // The cursor holds the ranking position of the last product of the previous page
+        long[] keys = HelperUtilMethods.decodeCursor(cursor, RANKED_CURSOR, MAX_SEARCH_SCORE, Integer.MAX_VALUE, Long.MAX_VALUE);
+        ProductSearchIndex.Position after = keys == null ? null : new ProductSearchIndex.Position((int) keys[0], (int) keys[1], keys[2]);
+        List<ProductSearchIndex.SearchHit> results = _productSearchIndex.search(name, category, after, pageSize + 1);
+        boolean hasNext = results.size() > pageSize;
+        List<ProductSearchIndex.SearchHit> hits = hasNext ? results.subList(0, pageSize) : results;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSearchIndex.Position last = hits.getLast().position();
+            nextCursor = HelperUtilMethods.encodeCursor(RANKED_CURSOR, last.score(), last.nameLength(), last.id());
+        }
+        return new ProductPageResponseDto(hits.stream().map(ProductSearchIndex.SearchHit::product).toList(), nextCursor, hasNext);
+    }
+
+
+    /**
+     * Get a category by name, creating the category if it does not exist
+     * @param categoryName String
+     * @return Category
+     */
+    private Category resolveCategory(String categoryName) {
+        Category category = _categoryService.getCategoryByName(categoryName);
+        if (category == null) {
+            try {
+                AddCategoryRequestDto requestDto = new AddCategoryRequestDto();
+                requestDto.setName(categoryName);
+                category = _categoryService.createCategory(requestDto);
+            } catch (ConflictException e) {
+                // Created concurrently by another request or instance
+                category = _categoryService.getCategoryByName(categoryName);
+                if (category == null) {
+                    throw e;
+                }
+            }
+        }
+        return category;
+    }
+
+
+    /**
+     * Add or replace the product in the search index - the category is the resolved one, since the category
+     * of a saved product may be a proxy that cannot be loaded outside of a session
+     * @param product Product
+     * @param category Category
+     */
+    private void indexProduct(Product product, Category category) {
+        _productSearchIndex.index(product.getId(), product.getName(), category.getId(), category.getName());
+    }
 }
@@ -0,0 +1,209 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.interfaces.IRefreshTokenService;
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.entities.RefreshTokenFamily;
+import com.sasindu.springsecurity.exceptions.ForbiddenException;
+import com.sasindu.springsecurity.repository.IRefreshTokenFamilyRepository;
+import com.sasindu.springsecurity.security.jwt.JWTUtils;
+import com.sasindu.springsecurity.security.jwt.RefreshTokenClaims;
+import com.sasindu.springsecurity.security.jwt.RefreshTokenRevocationIndex;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+
+/**
+ * Refresh token rotation with token families. Every login starts a family; each refresh replaces the
+ * family's current token id (jti) with a new one using a single conditional UPDATE, so a replayed older
+ * token fails the update and revokes the whole family (reuse detection). The token rotated just before is
+ * tolerated for a short grace period, so that two concurrent refreshes of one session (e.g. two browser tabs)
+ * both get the current token instead of revoking the session.
+ * Revoked families are kept in the RefreshTokenRevocationIndex, so refreshes with a revoked token are
+ * rejected without a database query.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService implements IRefreshTokenService {
+    private final IRefreshTokenFamilyRepository _refreshTokenFamilyRepository;
+    private final RefreshTokenRevocationIndex _revocationIndex;
+    private final JWTUtils _jwtUtils;
+
+    @Value("${jwt.refresh.expiration.days}")
+    private String refreshTokenExpirationDays;
+
+    @Value("${jwt.refresh.families.purge.batch.size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${jwt.refresh.rotation.grace.seconds:10}")
+    private long rotationGraceSeconds;
+
+
+    @Override
+    public String createFamily(AppUser user) {
+        try {
+            String jti = JWTUtils.newTokenId();
+            Instant expiresAt = nextExpiry();
+            RefreshTokenFamily family = _refreshTokenFamilyRepository.save(new RefreshTokenFamily(user.getId(), jti, toLocalDateTime(expiresAt)));
+            return _jwtUtils.generateRefreshToken(user, family.getId(), jti, expiresAt);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    @Override
+    public RefreshTokenClaims verify(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new ForbiddenException("Invalid refresh token");
+        }
+
+        RefreshTokenClaims claims;
+        try {
+            claims = _jwtUtils.verifyRefreshToken(refreshToken);
+        } catch (JwtException e) {
+            throw new ForbiddenException("Invalid refresh token");
+        }
+
+        // Tokens issued before token families were introduced cannot be rotated, the user has to log in again
+        if (claims.familyId() == null || claims.jti() == null || claims.userId() == null) {
+            throw new ForbiddenException("Invalid refresh token");
+        }
+        if (_revocationIndex.isRevoked(claims.familyId())) {
+            throw new ForbiddenException("Invalid refresh token");
+        }
+        return claims;
+    }
+
+
+    @Override
+    public String rotate(RefreshTokenClaims claims, AppUser user) {
+        try {
+            String newJti = JWTUtils.newTokenId();
+            Instant expiresAt = nextExpiry();
+            int updated = _refreshTokenFamilyRepository.rotate(claims.familyId(), claims.jti(), newJti, toLocalDateTime(expiresAt), LocalDateTime.now());
+            if (updated == 0) {
+                RefreshTokenFamily family = _refreshTokenFamilyRepository.findById(claims.familyId()).orElse(null);
+                if (isConcurrentRefresh(family, claims.jti())) {
+                    // Lost the race against another refresh of the session - hand out the token that won
+                    Instant currentExpiresAt = family.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant();
+                    return _jwtUtils.generateRefreshToken(user, family.getId(), family.getCurrentJti(), currentExpiresAt);
+                }
+                // The token was already rotated (or the family revoked elsewhere) - treat it as stolen
+                log.warn("Refresh token reuse detected for user {}, revoking token family {}", claims.userId(), claims.familyId());
+                revoke(claims.familyId(), expiresAt);
+                throw new ForbiddenException("Invalid refresh token");
+            }
+            return _jwtUtils.generateRefreshToken(user, claims.familyId(), newJti, expiresAt);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    @Override
+    public void revokeFamily(String refreshToken) {
+        try {
+            RefreshTokenClaims claims = verify(refreshToken);
+            revoke(claims.familyId(), claims.expiresAt());
+        } catch (ForbiddenException e) {
+            // Nothing to revoke
+        }
+    }
+
+
+    @Override
+    public void revokeAllForUser(Long userId) {
+        try {
+            for (RefreshTokenFamily family : _refreshTokenFamilyRepository.findByUserIdAndRevokedFalse(userId)) {
+                revoke(family.getId(), family.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+
+    /**
+     * Load the families revoked before the restart into the revocation index
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocationIndex() {
+        _refreshTokenFamilyRepository.findByRevokedTrueAndExpiresAtAfter(LocalDateTime.now())
+                .forEach(family -> _revocationIndex.revoke(family.getId(), family.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+    }
+
+
+    /**
+     * Drop the expired families from the index and the database, in bounded batches
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh.families.purge.interval.ms:3600000}")
+    public void purgeExpired() {
+        try {
+            _revocationIndex.prune();
+            LocalDateTime now = LocalDateTime.now();
+            int deleted;
+            do {
+                deleted = _refreshTokenFamilyRepository.deleteExpiredBatch(now, purgeBatchSize);
+            } while (deleted == purgeBatchSize);
+        } catch (Exception e) {
+            log.warn("Failed to purge the expired refresh token families: {}", e.getMessage());
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Revoke a family in the database and the index
+     * @param familyId Long
+     * @param expiresAt Instant - expiry of the latest token of the family
+     */
+    private void revoke(Long familyId, Instant expiresAt) {
+        _refreshTokenFamilyRepository.revoke(familyId);
+        _revocationIndex.revoke(familyId, expiresAt.toEpochMilli());
+    }
+
+
+    /**
+     * Check if the presented token was rotated by another refresh within the grace period
+     * @param family RefreshTokenFamily - null if the family was deleted
+     * @param jti String - ID of the presented refresh token
+     * @return boolean
+     */
+    private boolean isConcurrentRefresh(RefreshTokenFamily family, String jti) {
+        return family != null
+                && !family.isRevoked()
+                && jti.equals(family.getPreviousJti())
+                && family.getRotatedAt() != null
+                && family.getRotatedAt().isAfter(LocalDateTime.now().minusSeconds(rotationGraceSeconds));
+    }
+
+
+    private Instant nextExpiry() {
+        return Instant.now().plus(Long.parseLong(refreshTokenExpirationDays), ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
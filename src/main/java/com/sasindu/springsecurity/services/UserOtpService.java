@@ -1,29 +1,30 @@
 package com.sasindu.springsecurity.services;
 
 import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
+import com.sasindu.springsecurity.abstractions.interfaces.IOtpStore;
 import com.sasindu.springsecurity.abstractions.interfaces.IUserOtpService;
 import com.sasindu.springsecurity.entities.UserOtp;
-import com.sasindu.springsecurity.repository.IUserOtpRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class UserOtpService implements IUserOtpService {
-    private final IUserOtpRepository _userOtpRepository;
+    private final IOtpStore _otpStore;
 
 
     /**
-     * Find the OTP by type and user ID
+     * Check the code and the expiry of the OTP by type and user ID
      * @param type - Type of the OTP
      * @param userId - ID of the user
-     * @return UserOtp
+     * @param otp - Code to check
+     * @return OtpVerificationResult
      */
     @Override
-    public UserOtp findByTypeAndUserId(OtpEmailType type, Long userId) {
+    public OtpVerificationResult verifyOtp(OtpEmailType type, Long userId, String otp) {
         try{
-            return _userOtpRepository.findByTypeAndUserId(type, userId);
+            return _otpStore.verify(type, userId, otp);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -36,10 +37,9 @@ public class UserOtpService implements IUserOtpService {
      * @param userId - ID of the user
      */
     @Override
-    @Transactional
     public void deleteByTypeAndUserId(OtpEmailType type, Long userId) {
         try{
-            _userOtpRepository.deleteByTypeAndUserId(type, userId);
+            _otpStore.delete(type, userId);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -47,14 +47,14 @@ public class UserOtpService implements IUserOtpService {
 
 
     /**
-     * Save the OTP
+     * Save the OTP, replacing any existing OTP of the same type for the user
      * @param userOtp - UserOtp object
      * @return UserOtp
      */
     @Override
     public UserOtp saveOtp(UserOtp userOtp) {
         try{
-            return _userOtpRepository.save(userOtp);
+            return _otpStore.put(userOtp);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -3,7 +3,9 @@ package com.sasindu.springsecurity.services;
 
 import com.sasindu.springsecurity.abstractions.dto.request.user.UpdateUserPasswordRequestDto;
 import com.sasindu.springsecurity.abstractions.dto.request.user.UpdateUserRequestDto;
+import com.sasindu.springsecurity.abstractions.interfaces.IAccessTokenRevocationService;
 import com.sasindu.springsecurity.abstractions.interfaces.IAuthService;
+import com.sasindu.springsecurity.abstractions.interfaces.IRefreshTokenService;
 import com.sasindu.springsecurity.abstractions.interfaces.IUserService;
 import com.sasindu.springsecurity.entities.AppUser;
 import com.sasindu.springsecurity.exceptions.BadRequestException;
@@ -11,7 +13,10 @@ import com.sasindu.springsecurity.exceptions.ForbiddenException;
 import com.sasindu.springsecurity.exceptions.NotFoundException;
 import com.sasindu.springsecurity.helpers.HelperUtilMethods;
 import com.sasindu.springsecurity.repository.IUserRepository;
+import com.sasindu.springsecurity.security.services.CachingUserDetailsService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +27,10 @@ import java.util.List;
 public class UserService implements IUserService {
     private final IUserRepository _userRepository;
     private final IAuthService _authService;
+    private final CachingUserDetailsService _userDetailsCache;
+    private final IRefreshTokenService _refreshTokenService;
+    private final IAccessTokenRevocationService _accessTokenRevocationService;
+    private final PasswordEncoder _passwordEncoder;
 
     /**
      * Gets the details of a user account by id
@@ -66,7 +75,9 @@ public class UserService implements IUserService {
             // Update user details with the new values and save, then return the updated user
             user.setFirstName(request.getFirstName());
             user.setLastName(request.getLastName());
-            return _userRepository.save(user);
+            AppUser savedUser = _userRepository.save(user);
+            _userDetailsCache.evict(savedUser.getEmail());
+            return savedUser;
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -76,12 +87,14 @@ public class UserService implements IUserService {
 
 
     /**
-     * Update the password of a user account
+     * Update the password of a user account - the tokens of every session are revoked, and the caller gets
+     * the cookies of a new session
      * @param request - UpdateUserPasswordRequestDto
      * @param id - User id
+     * @param response - HttpServletResponse
      */
     @Override
-    public void updateUserPassword(UpdateUserPasswordRequestDto request, Long id) {
+    public void updateUserPassword(UpdateUserPasswordRequestDto request, Long id, HttpServletResponse response) {
         try{
             // Check if the user is trying to update their own account
             if(_authService.checkLoggedInUserWithId(id)) {
@@ -114,9 +127,14 @@ public class UserService implements IUserService {
                 throw new BadRequestException("Password should be at least 8 characters long and contain at least one uppercase letter, one lowercase letter, one number and one special character");
             }
 
-            // Update the user password and save
-            user.setPassword(request.getNewPassword());
+            // Hash the new password and save
+            user.setPassword(_passwordEncoder.encode(request.getNewPassword()));
             _userRepository.save(user);
+            _userDetailsCache.evict(user.getEmail());
+            // The new session of the caller is started first, so that its token can be exempted from the revocation
+            _refreshTokenService.revokeAllForUser(user.getId());
+            String sessionJti = _authService.startSession(user, response);
+            _accessTokenRevocationService.revokeAllForUser(user.getId(), sessionJti);
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -142,6 +160,9 @@ public class UserService implements IUserService {
             AppUser user = _userRepository.findById(id)
                     .orElseThrow(() -> new NotFoundException("User not found"));
             _userRepository.delete(user);
+            _userDetailsCache.evict(user.getEmail());
+            _refreshTokenService.revokeAllForUser(user.getId());
+            _accessTokenRevocationService.revokeAllForUser(user.getId(), null);
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
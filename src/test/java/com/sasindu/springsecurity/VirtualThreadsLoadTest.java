@@ -0,0 +1,333 @@
+package com.sasindu.springsecurity;
+
+import com.sasindu.springsecurity.helpers.VirtualThreadPinningMonitor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Load comparison of the platform thread and the virtual thread modes (spring.threads.virtual.enabled).
+ * The application is started in each mode with the same Tomcat pool and connection pool sizes, and a burst
+ * of concurrent requests is sent to an endpoint that sends an email through a slow SMTP server, and to one
+ * that runs a slow database call. The concurrency reached, the p99 latency and the pinned virtual threads
+ * of each run are logged.
+ * The SMTP transport reads the server replies inside synchronized methods, so before JDK 24 (JEP 491) every send
+ * pins its carrier thread in the virtual thread mode and the sends are limited to the carrier threads - the reason
+ * the email outbox workers stay on platform threads. The database calls are limited only by the connection pool,
+ * in both modes. Only the bounds that hold on every JDK and machine load are asserted.
+ * Excluded from the default build, run it with mvn test -Pload-tests.
+ */
+@Slf4j
+@Tag("load")
+class VirtualThreadsLoadTest {
+    private static final int TOMCAT_MAX_THREADS = 20;
+    private static final int CONNECTION_POOL_SIZE = 10;
+    private static final int SMTP_DELAY_MS = 200;
+    private static final int SMTP_REQUESTS = 60;
+    private static final int DB_DELAY_MS = 100;
+    private static final int DB_REQUESTS = 50;
+    private static final int PINNING_EVENTS_DELAY_MS = 2000;
+
+    private SlowSmtpServer smtpServer;
+    private HttpClient httpClient;
+    private ExecutorService clientExecutor;
+
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new SlowSmtpServer(SMTP_DELAY_MS);
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+    }
+
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        clientExecutor.close();
+        smtpServer.close();
+    }
+
+
+    @Test
+    void comparesThePlatformAndVirtualThreadModesUnderSlowSmtpAndSlowDatabase() throws Exception {
+        Result platformSmtp;
+        Result platformDb;
+        Result virtualSmtp;
+        Result virtualDb;
+        try (ConfigurableApplicationContext context = start(false)) {
+            platformSmtp = run(context, "/load-test/smtp", SMTP_REQUESTS);
+            platformDb = run(context, "/load-test/db", DB_REQUESTS);
+        }
+        try (ConfigurableApplicationContext context = start(true)) {
+            virtualSmtp = run(context, "/load-test/smtp", SMTP_REQUESTS);
+            virtualDb = run(context, "/load-test/db", DB_REQUESTS);
+        }
+
+        report("platform", "slow smtp", platformSmtp);
+        report("virtual", "slow smtp", virtualSmtp);
+        report("platform", "slow db", platformDb);
+        report("virtual", "slow db", virtualDb);
+
+        // The platform threads are limited by the Tomcat pool, the virtual threads are not
+        assertTrue(platformSmtp.concurrency() <= TOMCAT_MAX_THREADS);
+        assertTrue(platformDb.concurrency() <= TOMCAT_MAX_THREADS);
+        assertTrue(virtualDb.concurrency() > TOMCAT_MAX_THREADS);
+        // Slow database: the requests queue for a connection in both modes
+        long poolBoundMillis = (long) (DB_REQUESTS / CONNECTION_POOL_SIZE - 1) * DB_DELAY_MS;
+        assertTrue(platformDb.p99Millis() >= poolBoundMillis);
+        assertTrue(virtualDb.p99Millis() >= poolBoundMillis);
+    }
+
+
+    /**
+     * Endpoints of the load test, with the number of requests in progress
+     */
+    @RestController
+    static class LoadTestEndpoints {
+        private final JavaMailSender _mailSender;
+        private final JdbcTemplate _jdbcTemplate;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+
+        LoadTestEndpoints(JavaMailSender mailSender, JdbcTemplate jdbcTemplate) {
+            this._mailSender = mailSender;
+            this._jdbcTemplate = jdbcTemplate;
+            jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS LOAD_TEST_SLEEP FOR 'java.lang.Thread.sleep(long)'");
+        }
+
+
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity httpSecurity) throws Exception {
+            return httpSecurity
+                    .securityMatcher("/load-test/**")
+                    .csrf(AbstractHttpConfigurer::disable)
+                    .authorizeHttpRequests(req -> req.anyRequest().permitAll())
+                    .build();
+        }
+
+
+        @GetMapping("/load-test/smtp")
+        void sendEmail() {
+            track(() -> {
+                SimpleMailMessage message = new SimpleMailMessage();
+                message.setFrom("support@example.com");
+                message.setTo("load-test@example.com");
+                message.setSubject("Load test");
+                message.setText("Load test");
+                _mailSender.send(message);
+            });
+        }
+
+
+        @GetMapping("/load-test/db")
+        void queryDatabase() {
+            track(() -> _jdbcTemplate.execute("CALL LOAD_TEST_SLEEP(" + DB_DELAY_MS + ")"));
+        }
+
+
+        void reset() {
+            inFlight.set(0);
+            maxInFlight.set(0);
+        }
+
+
+        int getMaxInFlight() {
+            return maxInFlight.get();
+        }
+
+
+        private void track(Runnable work) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                work.run();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+
+    /**
+     * Concurrency reached by the endpoint, the p99 latency seen by the clients and the pinned virtual threads
+     * @param concurrency int
+     * @param p99Millis long
+     * @param pinned long
+     */
+    private record Result(int concurrency, long p99Millis, long pinned) {
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private ConfigurableApplicationContext start(boolean virtualThreads) {
+        // Command line arguments, as they take precedence over the application.properties files
+        return new SpringApplicationBuilder(Application.class, LoadTestEndpoints.class).run(
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load-test-" + virtualThreads + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                "--spring.datasource.hikari.maximum-pool-size=" + CONNECTION_POOL_SIZE,
+                "--spring.mail.port=" + smtpServer.getPort(),
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--virtual.threads.pinning.diagnostics.enabled=true"
+        );
+    }
+
+
+    private Result run(ConfigurableApplicationContext context, String path, int requests) throws Exception {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        LoadTestEndpoints endpoints = context.getBean(LoadTestEndpoints.class);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+
+        // Warm up the connections and the endpoint before measuring
+        burst(request, TOMCAT_MAX_THREADS);
+        endpoints.reset();
+
+        VirtualThreadPinningMonitor pinningMonitor = context.getBean(VirtualThreadPinningMonitor.class);
+        long pinnedBefore = pinningMonitor.getPinnedCount();
+        List<Long> latencies = burst(request, requests);
+        latencies.sort(null);
+        long p99 = latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+        // The events are streamed from the flight recorder with a delay of about a second
+        Thread.sleep(PINNING_EVENTS_DELAY_MS);
+        return new Result(endpoints.getMaxInFlight(), p99, pinningMonitor.getPinnedCount() - pinnedBefore);
+    }
+
+
+    private List<Long> burst(HttpRequest request, int requests) throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            futures.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> {
+                        assertEquals(200, response.statusCode());
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }));
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (CompletableFuture<Long> future : futures) {
+            latencies.add(future.get());
+        }
+        return latencies;
+    }
+
+
+    private static void report(String threads, String scenario, Result result) {
+        log.info("{} threads, {}: concurrency {}, p99 {} ms, pinned {}", threads, scenario, result.concurrency(), result.p99Millis(), result.pinned());
+    }
+
+
+    /**
+     * SMTP server that accepts every message after a delay, one platform thread per connection so that it does
+     * not compete with the application for the carrier threads
+     */
+    private static class SlowSmtpServer implements Closeable {
+        private final ServerSocket serverSocket;
+        private final int delayMillis;
+
+
+        SlowSmtpServer(int delayMillis) throws IOException {
+            this.serverSocket = new ServerSocket(0, 1000);
+            this.delayMillis = delayMillis;
+            Thread.ofPlatform().daemon(true).start(this::accept);
+        }
+
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread.ofPlatform().daemon(true).start(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Skip the message
+                        }
+                        Thread.sleep(delayMillis);
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException | InterruptedException ignored) {
+                // Connection closed by the client
+            }
+        }
+
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
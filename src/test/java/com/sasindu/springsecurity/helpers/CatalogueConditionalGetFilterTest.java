@@ -0,0 +1,107 @@
+package com.sasindu.springsecurity.helpers;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+class CatalogueConditionalGetFilterTest {
+    private static final String PRODUCTS_URL = "/api/v1/product/get-all";
+
+    private CatalogueVersion catalogueVersion;
+    private CatalogueConditionalGetFilter filter;
+
+
+    @BeforeEach
+    void setUp() {
+        catalogueVersion = mock(CatalogueVersion.class);
+        when(catalogueVersion.current()).thenReturn(new CatalogueVersion.State(42, 1_700_000_000_000L));
+        filter = new CatalogueConditionalGetFilter(catalogueVersion, 60);
+    }
+
+
+    @Test
+    void setsTheValidatorsOnASuccessfulResponse() throws Exception {
+        MockHttpServletResponse response = get(null, (request, servletResponse) -> servletResponse.getWriter().write("[]"));
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=60", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(1_700_000_000_000L, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+
+    @Test
+    void answersNotModifiedWhenTheClientHasTheCurrentVersion() throws Exception {
+        String etag = get(null, (request, servletResponse) -> servletResponse.getWriter().write("[]")).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = get(etag, (request, servletResponse) -> fail("The controller must not be reached"));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+
+    @Test
+    void answersTheNewVersionAfterAChange() throws Exception {
+        String etag = get(null, (request, servletResponse) -> servletResponse.getWriter().write("[]")).getHeader(HttpHeaders.ETAG);
+        when(catalogueVersion.current()).thenReturn(new CatalogueVersion.State(43, 1_700_000_001_000L));
+
+        MockHttpServletResponse response = get(etag, (request, servletResponse) -> servletResponse.getWriter().write("[]"));
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+
+    @Test
+    void doesNotMakeErrorsCacheable() throws Exception {
+        MockHttpServletResponse notFound = get(null, (request, servletResponse) -> servletResponse.sendError(404));
+        MockHttpServletResponse failed = get(null, (request, servletResponse) -> {
+            servletResponse.setStatus(500);
+            servletResponse.getWriter().write("{\"message\":\"error\"}");
+        });
+
+        for (MockHttpServletResponse response : new MockHttpServletResponse[]{notFound, failed}) {
+            assertNull(response.getHeader(HttpHeaders.ETAG));
+            assertNull(response.getHeader(HttpHeaders.CACHE_CONTROL));
+            assertNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        }
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private MockHttpServletResponse get(String ifNoneMatch, Handler handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", PRODUCTS_URL);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
+                handler.handle(servletRequest, servletResponse);
+            }
+        }));
+        return response;
+    }
+
+
+    private interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.repository.ICatalogueStateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Two catalogue versions over the same database, as on two instances of the application
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogueVersionTest {
+
+    @Autowired
+    private ICatalogueStateRepository catalogueStateRepository;
+
+
+    @AfterEach
+    void tearDown() {
+        catalogueStateRepository.deleteAll();
+    }
+
+
+    @Test
+    void sharesTheVersionBetweenTheInstances() {
+        CatalogueVersion instanceA = new CatalogueVersion(catalogueStateRepository, 0);
+        CatalogueVersion instanceB = new CatalogueVersion(catalogueStateRepository, 0);
+        CatalogueVersion.State initial = instanceB.current();
+
+        instanceA.increment();
+
+        assertEquals(initial.version() + 1, instanceB.current().version());
+        assertEquals(instanceA.current(), instanceB.current());
+    }
+
+
+    @Test
+    void seesTheChangesOfTheOtherInstancesAfterThePollInterval() {
+        CatalogueVersion instanceA = new CatalogueVersion(catalogueStateRepository, 0);
+        CatalogueVersion instanceB = new CatalogueVersion(catalogueStateRepository, 60_000);
+        CatalogueVersion.State initial = instanceB.current();
+
+        instanceA.increment();
+        assertEquals(initial, instanceB.current());
+
+        instanceB.increment();
+        assertEquals(initial.version() + 2, instanceB.current().version());
+    }
+
+
+    @Test
+    void createsTheRowOnTheFirstChange() {
+        CatalogueVersion instance = new CatalogueVersion(catalogueStateRepository, 0);
+
+        instance.increment();
+
+        assertEquals(1, catalogueStateRepository.count());
+        assertTrue(instance.current().version() > 0);
+    }
+}
@@ -0,0 +1,107 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.abstractions.dto.request.category.AddCategoryRequestDto;
+import com.sasindu.springsecurity.entities.Category;
+import com.sasindu.springsecurity.exceptions.ConflictException;
+import com.sasindu.springsecurity.repository.ICatalogueDeletionRepository;
+import com.sasindu.springsecurity.repository.ICategoryRepository;
+import com.sasindu.springsecurity.services.CategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Two catalogues over the same database, as on two instances of the application
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryCatalogueTest {
+
+    @Autowired
+    private ICategoryRepository categoryRepository;
+
+    private CategoryCatalogue instanceA;
+    private CategoryCatalogue instanceB;
+
+
+    @BeforeEach
+    void setUp() {
+        instanceA = new CategoryCatalogue(categoryRepository);
+        instanceB = new CategoryCatalogue(categoryRepository);
+        instanceA.reload();
+        instanceB.reload();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        categoryRepository.deleteAll();
+    }
+
+
+    @Test
+    void readsThroughToTheDatabaseWhenACategoryCreatedElsewhereIsMissing() {
+        Category created = createOn(instanceA, "phones");
+
+        Category found = instanceB.findByName("Phones");
+
+        assertNotNull(found);
+        assertEquals(created.getId(), found.getId());
+        assertEquals("phones", instanceB.findById(created.getId()).getName());
+        assertEquals(1, instanceB.findAll(null).size());
+        assertNull(instanceB.findByName("laptops"));
+    }
+
+
+    @Test
+    void forgetsACategoryDeletedElsewhereOnTheNextRefresh() {
+        Category created = createOn(instanceA, "phones");
+        assertTrue(instanceB.existsByName("phones"));
+
+        categoryRepository.deleteById(created.getId());
+        instanceA.remove(created.getId());
+        instanceB.refresh();
+
+        assertFalse(instanceB.existsByName("phones"));
+        assertNull(instanceB.findById(created.getId()));
+    }
+
+
+    @Test
+    void reportsAConflictWhenTheCategoryWasCreatedConcurrently() {
+        // Instance B checked the name before instance A created the category
+        CategoryCatalogue staleCatalogue = new CategoryCatalogue(categoryRepository) {
+            @Override
+            public boolean existsByName(String name) {
+                return false;
+            }
+        };
+        CategoryService instanceBService = new CategoryService(categoryRepository, staleCatalogue, mock(CatalogueVersion.class), new ProductSearchIndex(), mock(ICatalogueDeletionRepository.class));
+        createOn(instanceA, "phones");
+
+        AddCategoryRequestDto request = new AddCategoryRequestDto();
+        request.setName("phones");
+
+        assertThrows(ConflictException.class, () -> instanceBService.createCategory(request));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private Category createOn(CategoryCatalogue catalogue, String name) {
+        Category saved = categoryRepository.save(new Category(null, name, new HashSet<>()));
+        catalogue.put(saved);
+        return saved;
+    }
+}
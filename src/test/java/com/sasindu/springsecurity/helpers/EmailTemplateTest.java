@@ -0,0 +1,131 @@
+package com.sasindu.springsecurity.helpers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Compares the compiled templates with the previous implementation, which built each email with String.formatted
+ * on the template text for every send
+ */
+class EmailTemplateTest {
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*(\\w+)\\s*}}");
+    private static final Map<String, String> PARAMS = Map.of(
+            "toEmail", "user@example.com",
+            "otp", "123456",
+            "supportEmail", "support@example.com"
+    );
+
+
+    @Test
+    void rendersTheSlotsBetweenTheStaticChunks() {
+        EmailTemplate template = EmailTemplate.compile("<p>{{ name }} - {{missing}}!</p>{{unterminated");
+
+        assertEquals("<p>Ada - !</p>{{unterminated", template.render(Map.of("name", "Ada")));
+    }
+
+
+    @Test
+    void appendsToTheGivenBuffer() {
+        EmailTemplate template = EmailTemplate.compile("Hello {{name}}");
+        StringBuilder buffer = new StringBuilder("> ");
+
+        template.renderTo(Map.of("name", "Ada"), buffer);
+
+        assertEquals("> Hello Ada", buffer.toString());
+    }
+
+
+    @Test
+    void rendersTheSameOnAVirtualThread() throws Exception {
+        EmailTemplate template = EmailTemplate.compile(loadTemplate("emailVerifyTemplate"));
+        AtomicReference<String> rendered = new AtomicReference<>();
+
+        Thread.ofVirtual().start(() -> rendered.set(template.render(PARAMS))).join();
+
+        assertEquals(template.render(PARAMS), rendered.get());
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"emailVerifyTemplate", "passwordResetTemplate"})
+    void rendersExactlyWhatTheFormattedTemplateProduced(String templateName) throws Exception {
+        String source = loadTemplate(templateName);
+
+        assertEquals(renderFormatted(source, PARAMS), EmailTemplate.compile(source).render(PARAMS));
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"emailVerifyTemplate", "passwordResetTemplate"})
+    void allocatesLessThanTheFormattedTemplate(String templateName) throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported());
+        String source = loadTemplate(templateName);
+        EmailTemplate template = EmailTemplate.compile(source);
+
+        long compiled = allocatedBytesPerCall(() -> template.render(PARAMS));
+        long formatted = allocatedBytesPerCall(() -> renderFormatted(source, PARAMS));
+
+        // With the reused buffer only the resulting String is allocated: its bytes, plus for a non Latin-1 String
+        // the scratch copy of the failed compression in StringBuilder.toString
+        String rendered = template.render(PARAMS);
+        boolean isLatin1 = rendered.chars().allMatch(c -> c < 256);
+        long stringBytes = isLatin1 ? rendered.length() : 3L * rendered.length();
+        assertTrue(compiled < stringBytes + 256, "compiled template allocated " + compiled + " bytes per render");
+        assertTrue(compiled * 2 < formatted, "compiled " + compiled + " vs formatted " + formatted + " bytes per render");
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static String loadTemplate(String name) throws Exception {
+        return new ClassPathResource("templates/email/" + name + ".html").getContentAsString(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * The previous implementation - the template text with %s placeholders, formatted for every email
+     */
+    private static String renderFormatted(String source, Map<String, String> params) {
+        List<Object> values = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(source);
+        StringBuilder format = new StringBuilder();
+        while (matcher.find()) {
+            values.add(params.get(matcher.group(1)));
+            matcher.appendReplacement(format, "%s");
+        }
+        matcher.appendTail(format);
+        return format.toString().formatted(values.toArray());
+    }
+
+
+    private static long allocatedBytesPerCall(Supplier<String> render) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        int iterations = 2_000;
+        for (int i = 0; i < iterations; i++) {
+            render.get();
+        }
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            render.get();
+        }
+        return (bean.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+}
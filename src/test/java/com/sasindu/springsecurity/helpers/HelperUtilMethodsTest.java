@@ -0,0 +1,53 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class HelperUtilMethodsTest {
+
+    @Test
+    void decodesTheKeysetOfAnEncodedCursor() {
+        String cursor = HelperUtilMethods.encodeCursor("r", 3, 12, Long.MAX_VALUE);
+
+        assertEquals("r", HelperUtilMethods.cursorKind(cursor));
+        assertArrayEquals(new long[]{3, 12, Long.MAX_VALUE}, HelperUtilMethods.decodeCursor(cursor, "r", 4, Integer.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+
+    @Test
+    void returnsNullWithoutACursor() {
+        assertNull(HelperUtilMethods.cursorKind(null));
+        assertNull(HelperUtilMethods.decodeCursor(" ", "i", Long.MAX_VALUE));
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"i:-1", "i:9223372036854775808", "i:1e3", "i:", "i:1:2", "r:1", "1"})
+    void rejectsNegativeOutOfRangeOrMalformedKeys(String decoded) {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(BadRequestException.class, () -> HelperUtilMethods.decodeCursor(cursor, "i", Long.MAX_VALUE));
+    }
+
+
+    @Test
+    void rejectsKeysAboveTheirMaxValue() {
+        String cursor = HelperUtilMethods.encodeCursor("r", 5, 12, 1);
+
+        assertThrows(BadRequestException.class, () -> HelperUtilMethods.decodeCursor(cursor, "r", 4, Integer.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+
+    @Test
+    void rejectsCursorsThatAreNotBase64() {
+        assertThrows(BadRequestException.class, () -> HelperUtilMethods.cursorKind("not base64!"));
+    }
+}
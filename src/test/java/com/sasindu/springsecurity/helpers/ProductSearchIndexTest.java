@@ -0,0 +1,150 @@
+package com.sasindu.springsecurity.helpers;
+
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class ProductSearchIndexTest {
+    private ProductSearchIndex index;
+
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.beginRebuild();
+        index.addToRebuild(1L, "Phone case", 10L, "Accessories");
+        index.addToRebuild(2L, "Phone", 20L, "Phones");
+        index.addToRebuild(3L, "Smartphone", 20L, "Phones");
+        index.addToRebuild(4L, "Cordless phone", 20L, "Phones");
+        index.addToRebuild(5L, "Laptop", 30L, "Computers");
+        index.completeRebuild();
+    }
+
+
+    @Test
+    void ranksExactThenPrefixThenWordPrefixThenSubstringMatches() {
+        assertEquals(List.of(2L, 1L, 4L, 3L), ids(index.search("PHONE", null, null, 10)));
+    }
+
+
+    @Test
+    void filtersByCategoryName() {
+        assertEquals(List.of(2L, 4L, 3L), ids(index.search("phone", "phones", null, 10)));
+    }
+
+
+    @Test
+    void scansAllTheProductsForQueriesShorterThanATrigram() {
+        assertFalse(ProductSearchIndex.isIndexedQuery("la"));
+        assertEquals(List.of(5L), ids(index.search("la", null, null, 10)));
+        assertEquals(List.of(2L, 1L, 4L, 5L, 3L), ids(index.search("p", null, null, 10)));
+    }
+
+
+    @Test
+    void findsOnlyTheNamesContainingAllTheTrigramsInOrder() {
+        // "hone" and "case" share trigrams with other names, but only one name contains the whole query
+        assertEquals(List.of(1L), ids(index.search("phone case", null, null, 10)));
+        assertEquals(List.of(), ids(index.search("onep", null, null, 10)));
+    }
+
+
+    @Test
+    void dropsTheRemovedAndRenamedProductsFromThePostings() {
+        index.remove(1L);
+        index.index(2L, "Tablet", 20L, "Phones");
+
+        assertEquals(List.of(4L, 3L), ids(index.search("phone", null, null, 10)));
+        assertEquals(List.of(2L), ids(index.search("tab", null, null, 10)));
+    }
+
+
+    @Test
+    void pagesThroughAllTheResultsByKeyset() {
+        List<Long> paged = new ArrayList<>();
+        ProductSearchIndex.Position after = null;
+        List<ProductSearchIndex.SearchHit> page;
+        do {
+            page = index.search("phone", null, after, 1);
+            page.forEach(hit -> paged.add(hit.product().getId()));
+            after = page.isEmpty() ? null : page.getLast().position();
+        } while (!page.isEmpty());
+
+        assertEquals(List.of(2L, 1L, 4L, 3L), paged);
+    }
+
+
+    @Test
+    void keepsOnlyTheBestResultsOfALargeMatchSet() {
+        ProductSearchIndex large = new ProductSearchIndex();
+        large.beginRebuild();
+        LongStream.rangeClosed(1, 10_000).forEach(id -> large.addToRebuild(id, "Item " + id, 1L, "Items"));
+        large.completeRebuild();
+
+        List<ProductSearchIndex.SearchHit> page = large.search("item", null, new ProductSearchIndex.Position(3, 6, 9), 3);
+
+        assertEquals(List.of(10L, 11L, 12L), ids(page));
+    }
+
+
+    @Test
+    void keepsServingTheCurrentIndexDuringARebuild() {
+        index.beginRebuild();
+        index.addToRebuild(5L, "Laptop", 30L, "Computers");
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L, 1L, 4L, 3L), ids(index.search("phone", null, null, 10)));
+    }
+
+
+    @Test
+    void replaysTheChangesMadeDuringARebuild() {
+        index.beginRebuild();
+        index.addToRebuild(1L, "Phone case", 10L, "Accessories");
+        index.addToRebuild(2L, "Phone", 20L, "Phones");
+        // Deleted and renamed after their page was read, and added after the last page was read
+        index.remove(1L);
+        index.index(2L, "Desk phone", 20L, "Phones");
+        index.index(6L, "Phone charger", 10L, "Accessories");
+        index.completeRebuild();
+
+        assertEquals(List.of(6L, 2L), ids(index.search("phone", null, null, 10)));
+    }
+
+
+    @Test
+    void keepsTheCurrentIndexWhenARebuildIsAborted() {
+        index.beginRebuild();
+        index.remove(5L);
+        index.abortRebuild();
+
+        assertEquals(List.of(), ids(index.search("laptop", null, null, 10)));
+        assertEquals(List.of(2L, 1L, 4L, 3L), ids(index.search("phone", null, null, 10)));
+        assertThrows(IllegalStateException.class, () -> index.addToRebuild(7L, "Tablet", 20L, "Phones"));
+    }
+
+
+    @Test
+    void isNotReadyUntilTheFirstBuildCompletes() {
+        ProductSearchIndex empty = new ProductSearchIndex();
+        empty.beginRebuild();
+
+        assertFalse(empty.isReady());
+        assertThrows(IllegalStateException.class, empty::beginRebuild);
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static List<Long> ids(List<ProductSearchIndex.SearchHit> hits) {
+        return hits.stream().map(ProductSearchIndex.SearchHit::product).map(ProductResponseDto::getId).toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.sasindu.springsecurity.helpers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TimeOrderedIdGeneratorTest {
+    private static final long MAX_SAFE_JSON_INTEGER = (1L << 53) - 1;
+
+
+    @Test
+    void generatesIncreasingIdsThatFitInAJsonNumber() {
+        TimeOrderedIdGenerator.NodeSequence sequence = TimeOrderedIdGenerator.forNode(31);
+
+        long previous = 0;
+        Set<Long> ids = new HashSet<>();
+        // More than the 256 ids of a millisecond, so the sequence overflows into the next ones
+        for (int i = 0; i < 10_000; i++) {
+            long id = sequence.nextId();
+            assertTrue(id > previous);
+            assertTrue(id <= MAX_SAFE_JSON_INTEGER);
+            ids.add(id);
+            previous = id;
+        }
+        assertEquals(10_000, ids.size());
+    }
+
+
+    @Test
+    void encodesTheNodeSoThatNodesNeverCollide() {
+        long node3 = TimeOrderedIdGenerator.forNode(3).nextId();
+        long node17 = TimeOrderedIdGenerator.forNode(17).nextId();
+
+        assertEquals(3, (node3 >> 8) & 31);
+        assertEquals(17, (node17 >> 8) & 31);
+    }
+
+
+    @Test
+    void sharesTheSequenceOfANode() {
+        assertSame(TimeOrderedIdGenerator.forNode(5), TimeOrderedIdGenerator.forNode(5));
+        assertEquals(5, TimeOrderedIdGenerator.forNode(5).getNode());
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(longs = {-1, 32, 1000})
+    void rejectsNodeIdsOutOfRange(long node) {
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedIdGenerator.forNode(node));
+    }
+
+
+    @Test
+    void firstIdAtIsALowerBoundOfTheIdsGeneratedAfterThatTime() {
+        long before = System.currentTimeMillis();
+        long id = TimeOrderedIdGenerator.forNode(31).nextId();
+
+        assertTrue(TimeOrderedIdGenerator.firstIdAt(before) <= id);
+        assertTrue(TimeOrderedIdGenerator.firstIdAt(before + 60_000) > id);
+    }
+}
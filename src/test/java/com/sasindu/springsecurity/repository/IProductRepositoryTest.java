@@ -0,0 +1,128 @@
+package com.sasindu.springsecurity.repository;
+
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
+import com.sasindu.springsecurity.entities.Category;
+import com.sasindu.springsecurity.entities.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Statement count of the product listing - must not grow with the number of products or categories -
+ * and of the product inserts, which are batched thanks to the application-assigned ids
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class IProductRepositoryTest {
+
+    @Autowired
+    private IProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50, 200})
+    void readsAPageWithOneStatementWhateverTheNumberOfProducts(int productCount) {
+        insertProducts(productCount);
+
+        statistics.clear();
+        Slice<ProductResponseDto> page = productRepository.findPageAfterId(0L, null, null, PageRequest.of(0, 100));
+
+        assertEquals(Math.min(productCount, 100), page.getNumberOfElements());
+        assertEquals(productCount > 100, page.hasNext());
+        assertNotNull(page.getContent().getFirst().getCategory().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 200})
+    void readsAFilteredPageWithOneStatement(int productCount) {
+        insertProducts(productCount);
+
+        statistics.clear();
+        Slice<ProductResponseDto> page = productRepository.findPageAfterId(0L, "product 1", "category", PageRequest.of(0, 20));
+
+        assertFalse(page.isEmpty());
+        page.forEach(product -> assertTrue(product.getName().contains("product 1")));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 200})
+    void loadsAProductWithItsCategoryInOneStatement(int productCount) {
+        Long id = insertProducts(productCount);
+
+        statistics.clear();
+        Product product = productRepository.findById(id).orElseThrow();
+
+        assertNotNull(product.getCategory().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+
+    @Test
+    void insertsProductsInJdbcBatches() {
+        statistics.clear();
+        insertProducts(500);
+
+        // 10 categories and 500 products in batches of 50, instead of one round-trip per row with IDENTITY ids
+        assertEquals(510, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 12, "statements: " + statistics.getPrepareStatementCount());
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    /**
+     * Insert the products spread over 10 categories and clear the persistence context
+     * @return Id of the last inserted product
+     */
+    private Long insertProducts(int count) {
+        Category[] categories = new Category[10];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = new Category(null, "category " + i, new HashSet<>());
+            entityManager.persist(categories[i]);
+        }
+        Long lastId = null;
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setName("product " + i);
+            product.setCategory(categories[i % categories.length]);
+            entityManager.persist(product);
+            lastId = product.getId();
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return lastId;
+    }
+}
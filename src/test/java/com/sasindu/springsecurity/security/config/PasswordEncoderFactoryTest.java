@@ -0,0 +1,71 @@
+package com.sasindu.springsecurity.security.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class PasswordEncoderFactoryTest {
+    private static final String PASSWORD = "Secret@password1";
+
+
+    @Test
+    void recordsThePbkdf2IterationsInTheHash() {
+        PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder encoder = new PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder(1000);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertTrue(hash.startsWith("1000$"));
+        assertTrue(encoder.matches(PASSWORD, hash));
+        assertFalse(encoder.matches("Wrong@password1", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+
+    @Test
+    void matchesAndUpgradesPbkdf2HashesWithFewerIterations() {
+        String hash = new PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder(1000).encode(PASSWORD);
+        PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder recalibrated = new PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder(2000);
+
+        assertTrue(recalibrated.matches(PASSWORD, hash));
+        assertTrue(recalibrated.upgradeEncoding(hash));
+        assertFalse(new PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder(500).upgradeEncoding(hash));
+    }
+
+
+    @Test
+    void matchesAndUpgradesPbkdf2HashesWithoutIterations() {
+        // Hashes created before the iterations were recorded used the minimum iterations
+        String legacyHash = new Pbkdf2PasswordEncoder("", 16, 600_000, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256).encode(PASSWORD);
+        PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder encoder = new PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder(600_000);
+
+        assertTrue(encoder.matches(PASSWORD, legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+    }
+
+
+    @Test
+    void rejectsMalformedPbkdf2Hashes() {
+        PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder encoder = new PasswordEncoderFactory.IterationsPbkdf2PasswordEncoder(1000);
+
+        assertFalse(encoder.matches(PASSWORD, "abc$00ff"));
+        assertFalse(encoder.matches(PASSWORD, null));
+    }
+
+
+    @Test
+    void upgradesHashesOfAnotherAlgorithm() {
+        PasswordEncoder bcrypt = PasswordEncoderFactory.create("bcrypt", 0);
+        PasswordEncoder pbkdf2 = PasswordEncoderFactory.create("pbkdf2", 0);
+        String bcryptHash = bcrypt.encode(PASSWORD);
+
+        assertTrue(pbkdf2.matches(PASSWORD, bcryptHash));
+        assertTrue(pbkdf2.upgradeEncoding(bcryptHash));
+
+        String pbkdf2Hash = pbkdf2.encode(PASSWORD);
+        assertTrue(pbkdf2Hash.startsWith("{pbkdf2}600000$"));
+        assertFalse(pbkdf2.upgradeEncoding(pbkdf2Hash));
+    }
+}
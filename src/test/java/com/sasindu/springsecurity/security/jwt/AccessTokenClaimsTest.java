@@ -0,0 +1,58 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import com.sasindu.springsecurity.abstractions.enums.AppUserRoles;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccessTokenClaimsTest {
+
+    @Test
+    void pinsTheBitOfEveryRole() {
+        // Compact tokens already issued carry these bits - a failure here means a role bit was changed
+        assertEquals(0, AppUserRoles.ROLE_ADMIN.getBit());
+        assertEquals(1, AppUserRoles.ROLE_USER.getBit());
+        assertEquals(2, AppUserRoles.values().length, "Pin the bit of the new role in this test");
+    }
+
+
+    @Test
+    void givesEveryRoleItsOwnBit() {
+        assertEquals(AppUserRoles.values().length, Arrays.stream(AppUserRoles.values()).mapToInt(AppUserRoles::getBit).distinct().count());
+        assertTrue(Arrays.stream(AppUserRoles.values()).allMatch(role -> role.getBit() >= 0 && role.getBit() < 64));
+    }
+
+
+    @Test
+    void encodesTheRolesAsABitmask() {
+        assertEquals(0b01L, AccessTokenClaims.encodeRoles(List.of("ROLE_ADMIN")));
+        assertEquals(0b10L, AccessTokenClaims.encodeRoles(List.of("ROLE_USER")));
+        assertEquals(0b11L, AccessTokenClaims.encodeRoles(List.of("ROLE_USER", "ROLE_ADMIN")));
+        assertEquals(0L, AccessTokenClaims.encodeRoles(List.of()));
+    }
+
+
+    @Test
+    void cannotEncodeAnUnknownRole() {
+        assertNull(AccessTokenClaims.encodeRoles(List.of("ROLE_USER", "ROLE_AUDITOR")));
+    }
+
+
+    @Test
+    void decodesTheBitmaskAndIgnoresUnknownBits() {
+        AccessTokenClaims claims = AccessTokenClaims.from(Jwts.claims()
+                .subject("user@example.com")
+                .add(AccessTokenClaims.COMPACT_USER_ID, 42L)
+                .add(AccessTokenClaims.COMPACT_ROLES, 0b10L | (1L << 40))
+                .build());
+
+        assertEquals(List.of("ROLE_USER"), claims.roles());
+        assertEquals(42L, claims.userId());
+        assertEquals("user@example.com", claims.email());
+    }
+}
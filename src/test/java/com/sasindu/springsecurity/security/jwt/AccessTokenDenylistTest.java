@@ -0,0 +1,109 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccessTokenDenylistTest {
+    private static final long MINUTE = 60_000;
+
+    private final AccessTokenDenylist denylist = new AccessTokenDenylist();
+    private final long now = System.currentTimeMillis();
+
+
+    @Test
+    void deniesARevokedToken() {
+        denylist.revokeToken("revoked", now + 15 * MINUTE);
+
+        assertTrue(denylist.isRevoked(claims(1L, "revoked", now)));
+        assertFalse(denylist.isRevoked(claims(1L, "other", now)));
+    }
+
+
+    @Test
+    void deniesTheTokensOfAUserIssuedUpToTheCutOffExceptTheNewSession() {
+        long cutOff = Instant.ofEpochMilli(now).getEpochSecond() * 1000;
+        denylist.revokeUser(1L, cutOff, "new-session", cutOff + 15 * MINUTE);
+
+        assertTrue(denylist.isRevoked(claims(1L, "before", cutOff - 1000)));
+        assertTrue(denylist.isRevoked(claims(1L, "same-second", cutOff)));
+        assertFalse(denylist.isRevoked(claims(1L, "new-session", cutOff)));
+        assertFalse(denylist.isRevoked(claims(1L, "after", cutOff + 1000)));
+        assertFalse(denylist.isRevoked(claims(2L, "other-user", cutOff - 1000)));
+    }
+
+
+    @Test
+    void deniesTheTokensOfARevokedUserWithoutAnIssueTime() {
+        denylist.revokeUser(1L, now, null, now + 15 * MINUTE);
+
+        assertTrue(denylist.isRevoked(new AccessTokenClaims("user@example.com", 1L, List.of(), null, null, "legacy", null)));
+    }
+
+
+    @Test
+    void prunesOnlyTheBucketsWhoseTokensHaveExpired() {
+        denylist.revokeToken("expired", now - 2 * MINUTE);
+        denylist.revokeUser(1L, now - 20 * MINUTE, null, now - 2 * MINUTE);
+        denylist.revokeToken("live", now + 15 * MINUTE);
+        denylist.revokeUser(2L, now, null, now + 15 * MINUTE);
+
+        denylist.prune();
+
+        assertEquals(2, denylist.size());
+        assertFalse(denylist.isRevoked(claims(1L, "expired", now - 30 * MINUTE)));
+        assertTrue(denylist.isRevoked(claims(3L, "live", now)));
+        assertTrue(denylist.isRevoked(claims(2L, "token", now - 1000)));
+    }
+
+
+    @Test
+    void keepsALaterRevocationWhenTheBucketOfAnEarlierOneIsPruned() {
+        denylist.revokeToken("token", now - 2 * MINUTE);
+        denylist.revokeToken("token", now + 15 * MINUTE);
+        denylist.revokeUser(1L, now - 20 * MINUTE, null, now - 2 * MINUTE);
+        denylist.revokeUser(1L, now, null, now + 15 * MINUTE);
+
+        denylist.prune();
+
+        assertTrue(denylist.isRevoked(claims(2L, "token", now)));
+        assertTrue(denylist.isRevoked(claims(1L, "other", now - 1000)));
+    }
+
+
+    @Test
+    void keepsTheLatestCutOffOfAUser() {
+        denylist.revokeUser(1L, now, null, now + 15 * MINUTE);
+        denylist.revokeUser(1L, now - 10 * MINUTE, "session", now + 5 * MINUTE);
+
+        assertTrue(denylist.isRevoked(claims(1L, "token", now - MINUTE)));
+        assertTrue(denylist.isRevoked(claims(1L, "session", now - 10 * MINUTE)));
+    }
+
+
+    @Test
+    void exemptsNeitherSessionOfTwoCutOffsInTheSameSecondWhateverTheirOrder() {
+        denylist.revokeUser(1L, now, "first", now + 15 * MINUTE);
+        denylist.revokeUser(1L, now, "second", now + 15 * MINUTE);
+        denylist.revokeUser(2L, now, "second", now + 15 * MINUTE);
+        denylist.revokeUser(2L, now, "first", now + 15 * MINUTE);
+
+        assertTrue(denylist.isRevoked(claims(1L, "first", now)));
+        assertTrue(denylist.isRevoked(claims(1L, "second", now)));
+        assertTrue(denylist.isRevoked(claims(2L, "first", now)));
+        assertTrue(denylist.isRevoked(claims(2L, "second", now)));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static AccessTokenClaims claims(Long userId, String jti, long issuedAtMillis) {
+        return new AccessTokenClaims("user@example.com", userId, List.of("ROLE_USER"), "user@example.com",
+                Instant.ofEpochMilli(issuedAtMillis).plusSeconds(900), jti, Instant.ofEpochMilli(issuedAtMillis));
+    }
+}
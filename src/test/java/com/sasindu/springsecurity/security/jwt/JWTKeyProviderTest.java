@@ -0,0 +1,168 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTKeyProviderTest {
+    private static final String SECRET_A = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+    private static final String SECRET_B = "ffeeddccbbaa99887766554433221100ffeeddccbbaa99887766554433221100";
+
+    @TempDir
+    Path tempDir;
+
+    private MockEnvironment environment;
+
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment()
+                .withProperty("jwt.access.secret", SECRET_A)
+                .withProperty("jwt.refresh.secret", SECRET_A);
+    }
+
+
+    @Test
+    void derivesTheKeysOnceAndKeepsThemWhileTheSecretsAreUnchanged() {
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+
+        var accessKey = provider.accessKey();
+        var accessParser = provider.accessParser();
+
+        assertFalse(provider.reload());
+        assertSame(accessKey, provider.accessKey());
+        assertSame(accessParser, provider.accessParser());
+    }
+
+
+    @Test
+    void reloadsRotatedSecretsFromTheKeysFile() throws Exception {
+        Path keysFile = tempDir.resolve("jwt-keys.properties");
+        Files.writeString(keysFile, "jwt.access.secret=" + SECRET_A + "\n");
+        environment.setProperty("jwt.keys.file", keysFile.toString());
+
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+        String oldToken = Jwts.builder().subject("user@example.com").signWith(provider.accessKey()).compact();
+
+        Files.writeString(keysFile, "jwt.access.secret=" + SECRET_B + "\n");
+        provider.reloadKeysFile();
+
+        String newToken = Jwts.builder().subject("user@example.com").signWith(provider.accessKey()).compact();
+        assertEquals("user@example.com", provider.accessParser().parseSignedClaims(newToken).getPayload().getSubject());
+        assertThrows(SignatureException.class, () -> provider.accessParser().parseSignedClaims(oldToken));
+    }
+
+
+    @Test
+    void keepsTheCurrentKeysWhenTheKeysFileCannotBeRead() throws Exception {
+        Path keysFile = tempDir.resolve("jwt-keys.properties");
+        Files.writeString(keysFile, "jwt.access.secret=" + SECRET_B + "\n");
+        environment.setProperty("jwt.keys.file", keysFile.toString());
+
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+        var accessKey = provider.accessKey();
+
+        Files.delete(keysFile);
+        provider.reloadKeysFile();
+
+        assertSame(accessKey, provider.accessKey());
+    }
+
+
+    @Test
+    void verifiesTokensSignedWithTheActiveKeyAndPublishesItsPublicKey() {
+        environment.setProperty("jwt.access.signing.algorithm", "ES256");
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+
+        String token = signWithActiveKey(provider);
+
+        assertEquals("user@example.com", provider.accessParser().parseSignedClaims(token).getPayload().getSubject());
+        List<?> keys = (List<?>) provider.accessJwks().get("keys");
+        Map<?, ?> jwk = (Map<?, ?>) keys.getFirst();
+        assertEquals(provider.accessSigningKey().kid(), jwk.get("kid"));
+        assertEquals("ES256", jwk.get("alg"));
+        assertNull(jwk.get("d"));
+    }
+
+
+    @Test
+    void rejectsTokensOfAnUnknownKeyId() {
+        environment.setProperty("jwt.access.signing.algorithm", "EdDSA");
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+        JWTKeyProvider.SigningKey signingKey = provider.accessSigningKey();
+
+        String token = Jwts.builder()
+                .header().keyId("retired").and()
+                .subject("user@example.com")
+                .signWith(signingKey.privateKey(), signingKey.algorithm())
+                .compact();
+
+        assertThrows(MalformedJwtException.class, () -> provider.accessParser().parseSignedClaims(token));
+    }
+
+
+    @Test
+    void rejectsHmacTokensWithoutAKeyIdOnceAnAsymmetricAlgorithmIsConfigured() {
+        String hmacToken = hmacToken();
+        environment.setProperty("jwt.access.signing.algorithm", "EdDSA");
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+
+        assertThrows(MalformedJwtException.class, () -> provider.accessParser().parseSignedClaims(hmacToken));
+    }
+
+
+    @Test
+    void acceptsHmacTokensWithoutAKeyIdOnlyUntilTheCutOff() {
+        String hmacToken = hmacToken();
+        environment.setProperty("jwt.access.signing.algorithm", "EdDSA");
+        environment.setProperty("jwt.access.signing.hmac.accept.until", Instant.now().plus(15, ChronoUnit.MINUTES).toString());
+        JWTKeyProvider provider = new JWTKeyProvider(environment);
+        provider.init();
+
+        assertEquals("user@example.com", provider.accessParser().parseSignedClaims(hmacToken).getPayload().getSubject());
+
+        environment.setProperty("jwt.access.signing.hmac.accept.until", Instant.now().minusSeconds(1).toString());
+        assertTrue(provider.reload());
+
+        assertThrows(MalformedJwtException.class, () -> provider.accessParser().parseSignedClaims(hmacToken));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private String hmacToken() {
+        JWTKeyProvider hmacProvider = new JWTKeyProvider(environment);
+        hmacProvider.init();
+        return Jwts.builder().subject("user@example.com").signWith(hmacProvider.accessKey()).compact();
+    }
+
+
+    private static String signWithActiveKey(JWTKeyProvider provider) {
+        JWTKeyProvider.SigningKey signingKey = provider.accessSigningKey();
+        return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
+                .subject("user@example.com")
+                .signWith(signingKey.privateKey(), signingKey.algorithm())
+                .compact();
+    }
+}
@@ -0,0 +1,102 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import com.sasindu.springsecurity.abstractions.enums.AppUserRoles;
+import com.sasindu.springsecurity.entities.AppUser;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTUtilsTest {
+    private static final String ACCESS_SECRET = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+    private static final String REFRESH_SECRET = "ffeeddccbbaa99887766554433221100ffeeddccbbaa99887766554433221100";
+
+    private JWTUtils jwtUtils;
+    private AppUser user;
+
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("jwt.access.secret", ACCESS_SECRET)
+                .withProperty("jwt.refresh.secret", REFRESH_SECRET);
+        JWTKeyProvider keyProvider = new JWTKeyProvider(environment);
+        keyProvider.init();
+
+        jwtUtils = new JWTUtils(keyProvider);
+        ReflectionTestUtils.setField(jwtUtils, "accessTokenExpirationMinutes", "15");
+
+        user = new AppUser();
+        user.setId(42L);
+        user.setEmail("user@example.com");
+        user.setRole("ROLE_USER");
+    }
+
+
+    @Test
+    void verifiesAnAccessTokenIntoItsClaims() {
+        AccessTokenClaims claims = jwtUtils.verifyAccessToken(jwtUtils.generateAccessToken(user));
+
+        assertEquals("user@example.com", claims.subject());
+        assertEquals(42L, claims.userId());
+        assertEquals(List.of("ROLE_USER"), claims.roles());
+        assertEquals("user@example.com", claims.email());
+        assertNotNull(claims.jti());
+        assertTrue(claims.expiresAt().isAfter(Instant.now()));
+    }
+
+
+    @Test
+    void rejectsATamperedAccessToken() {
+        String token = jwtUtils.generateAccessToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtils.verifyAccessToken(tampered));
+    }
+
+
+    @Test
+    void doesNotAcceptARefreshTokenAsAnAccessToken() {
+        String refreshToken = jwtUtils.generateRefreshToken(user, 7L, JWTUtils.newTokenId(), Instant.now().plus(1, ChronoUnit.DAYS));
+
+        assertThrows(JwtException.class, () -> jwtUtils.verifyAccessToken(refreshToken));
+        assertEquals(7L, jwtUtils.verifyRefreshToken(refreshToken).familyId());
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void roundTripsTheClaimsOfBothProfiles(boolean isCompactClaims) {
+        ReflectionTestUtils.setField(jwtUtils, "isCompactClaims", isCompactClaims);
+
+        for (AppUserRoles role : AppUserRoles.values()) {
+            user.setRole(role.name());
+            AccessTokenClaims claims = jwtUtils.verifyAccessToken(jwtUtils.generateAccessToken(user));
+
+            assertEquals(List.of(role.name()), claims.roles());
+            assertEquals(42L, claims.userId());
+            assertEquals("user@example.com", claims.email());
+        }
+    }
+
+
+    @Test
+    void readsTheTokensOfTheOtherProfile() {
+        String standardToken = jwtUtils.generateAccessToken(user);
+        ReflectionTestUtils.setField(jwtUtils, "isCompactClaims", true);
+        String compactToken = jwtUtils.generateAccessToken(user);
+
+        assertEquals(jwtUtils.verifyAccessToken(standardToken).roles(), jwtUtils.verifyAccessToken(compactToken).roles());
+        assertEquals(jwtUtils.verifyAccessToken(standardToken).userId(), jwtUtils.verifyAccessToken(compactToken).userId());
+        assertTrue(compactToken.length() < standardToken.length());
+    }
+}
@@ -0,0 +1,91 @@
+package com.sasindu.springsecurity.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class RefreshTokenRevocationIndexTest {
+    private final RefreshTokenRevocationIndex index = new RefreshTokenRevocationIndex();
+
+
+    @Test
+    void reportsOnlyTheRevokedFamilies() {
+        LongStream.rangeClosed(1, 1000).forEach(familyId -> index.revoke(familyId, inOneHour()));
+
+        assertTrue(LongStream.rangeClosed(1, 1000).allMatch(index::isRevoked));
+        assertTrue(LongStream.rangeClosed(1001, 100_000).noneMatch(index::isRevoked));
+    }
+
+
+    @Test
+    void keepsTheLatestExpiryOfAFamily() {
+        index.revoke(1L, inOneHour());
+        index.revoke(1L, System.currentTimeMillis() - 1000);
+
+        index.prune();
+
+        assertTrue(index.isRevoked(1L));
+    }
+
+
+    @Test
+    void prunesTheExpiredFamilies() {
+        index.revoke(1L, System.currentTimeMillis() - 1000);
+        index.revoke(2L, inOneHour());
+
+        index.prune();
+
+        assertFalse(index.isRevoked(1L));
+        assertTrue(index.isRevoked(2L));
+        assertEquals(1, index.size());
+    }
+
+
+    @Test
+    void neverReportsARevokedFamilyAsActiveDuringAPrune() throws Exception {
+        LongStream.rangeClosed(1, 10_000).forEach(familyId -> index.revoke(familyId, inOneHour()));
+        AtomicBoolean pruning = new AtomicBoolean(true);
+        Thread pruner = Thread.ofPlatform().start(() -> {
+            while (pruning.get()) {
+                index.prune();
+            }
+        });
+
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                assertTrue(index.isRevoked(10_000L - i % 10_000));
+            }
+        } finally {
+            pruning.set(false);
+            pruner.join();
+        }
+    }
+
+
+    @Test
+    void keepsAFamilyRevokedDuringAPrune() throws Exception {
+        LongStream.rangeClosed(1, 10_000).forEach(familyId -> index.revoke(familyId, inOneHour()));
+        Thread pruner = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 50; i++) {
+                index.prune();
+            }
+        });
+
+        LongStream.rangeClosed(10_001, 20_000).forEach(familyId -> index.revoke(familyId, inOneHour()));
+        pruner.join();
+
+        assertTrue(LongStream.rangeClosed(1, 20_000).allMatch(index::isRevoked));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static long inOneHour() {
+        return System.currentTimeMillis() + 3_600_000;
+    }
+}
@@ -0,0 +1,157 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+import com.sasindu.springsecurity.abstractions.interfaces.IRateLimitStore;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+class RateLimitFilterTest {
+    private static final String LOGIN_URL = "/api/v1/auth/login";
+    private static final String LOGIN_BODY = "{\"email\":\" User@Example.com \",\"password\":\"secret\"}";
+
+    private MockEnvironment environment;
+
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment()
+                .withProperty("rate.limit.endpoint.login.path", LOGIN_URL)
+                .withProperty("rate.limit.endpoint.login.ip", "2/60")
+                .withProperty("rate.limit.endpoint.login.email", "1/300");
+    }
+
+
+    @Test
+    void replaysTheBodyReadForTheEmailToTheController() throws Exception {
+        RateLimitFilter filter = filter(new InMemoryRateLimitStore(100, 3600));
+        AtomicReference<String> replayedBody = new AtomicReference<>();
+
+        MockHttpServletResponse response = post(filter, LOGIN_BODY, (request, servletResponse) ->
+                replayedBody.set(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(LOGIN_BODY, replayedBody.get());
+    }
+
+
+    @Test
+    void limitsTheRequestsOfAnEmailFromAnyIp() throws Exception {
+        RateLimitFilter filter = filter(new InMemoryRateLimitStore(100, 3600));
+
+        assertEquals(200, post(filter, LOGIN_BODY, "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = post(filter, "{\"email\":\"user@example.com\"}", "10.0.0.2");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("300", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, filter.getRejectedCount());
+    }
+
+
+    @Test
+    void limitsTheRequestsOfAnIpBeforeReadingTheBody() throws Exception {
+        RateLimitFilter filter = filter(new InMemoryRateLimitStore(100, 3600));
+
+        assertEquals(200, post(filter, "{\"email\":\"a@example.com\"}", "10.0.0.1").getStatus());
+        assertEquals(200, post(filter, "{\"email\":\"b@example.com\"}", "10.0.0.1").getStatus());
+        MockHttpServletResponse rejected = post(filter, "{\"email\":\"c@example.com\"}", "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+
+    @Test
+    void roundsTheRetryAfterUpToWholeSeconds() throws Exception {
+        IRateLimitStore store = mock(IRateLimitStore.class);
+        when(store.tryConsume(eq("login:ip:127.0.0.1"), any())).thenReturn(1000L, 1001L, 1L);
+        RateLimitFilter filter = filter(store);
+
+        assertEquals("1", post(filter, LOGIN_BODY, "127.0.0.1").getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals("2", post(filter, LOGIN_BODY, "127.0.0.1").getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals("1", post(filter, LOGIN_BODY, "127.0.0.1").getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+
+    @Test
+    void rejectsABodyTooLargeToReadTheEmail() throws Exception {
+        IRateLimitStore store = mock(IRateLimitStore.class);
+        RateLimitFilter filter = filter(store);
+        String body = "{\"email\":\"user@example.com\",\"padding\":\"" + "x".repeat(16 * 1024) + "\"}";
+
+        MockHttpServletResponse response = post(filter, body, "127.0.0.1");
+
+        assertEquals(413, response.getStatus());
+        verify(store, never()).tryConsume(startsWith("login:email:"), any());
+    }
+
+
+    @Test
+    void doesNotLimitOtherMethodsOrPaths() throws Exception {
+        IRateLimitStore store = mock(IRateLimitStore.class);
+        RateLimitFilter filter = filter(store);
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", LOGIN_URL);
+        MockHttpServletRequest otherPath = new MockHttpServletRequest("POST", "/api/v1/auth/logout");
+
+        filter.doFilter(get, new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(otherPath, new MockHttpServletResponse(), new MockFilterChain());
+
+        verifyNoInteractions(store);
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private RateLimitFilter filter(IRateLimitStore store) {
+        return new RateLimitFilter(store, environment, true, new String[]{"login"});
+    }
+
+
+    private static MockHttpServletResponse post(RateLimitFilter filter, String body, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = request(body);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+
+    private static MockHttpServletResponse post(RateLimitFilter filter, String body, Handler handler) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(body), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                handler.handle(request, response);
+            }
+        }));
+        return response;
+    }
+
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", LOGIN_URL);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+
+    private interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+}
@@ -0,0 +1,38 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class RateLimitRuleTest {
+
+    @Test
+    void parsesCapacityAndPeriod() {
+        assertEquals(new RateLimitRule(5, 60), RateLimitRule.parse(" 5 / 60 "));
+    }
+
+
+    @Test
+    void returnsNullWithoutARule() {
+        assertNull(RateLimitRule.parse(null));
+        assertNull(RateLimitRule.parse(" "));
+    }
+
+
+    @ParameterizedTest
+    @ValueSource(strings = {"5", "5/60/1", "0/60", "5/0", "-1/60", "five/60"})
+    void rejectsInvalidRules(String value) {
+        assertThrows(IllegalArgumentException.class, () -> RateLimitRule.parse(value));
+    }
+
+
+    @Test
+    void refillsTheCapacityOverThePeriod() {
+        RateLimitRule rule = new RateLimitRule(5, 60);
+
+        assertEquals(5, rule.tokensPerNano() * 60_000_000_000L, 1e-9);
+    }
+}
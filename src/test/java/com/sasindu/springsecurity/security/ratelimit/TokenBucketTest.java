@@ -0,0 +1,80 @@
+package com.sasindu.springsecurity.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TokenBucketTest {
+    private static final long START = 1_000_000_000L;
+    private static final RateLimitRule FIVE_PER_MINUTE = new RateLimitRule(5, 60);
+
+
+    @Test
+    void allowsABurstUpToTheCapacity() {
+        TokenBucket bucket = new TokenBucket(FIVE_PER_MINUTE, START);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(FIVE_PER_MINUTE, START));
+        }
+        assertTrue(bucket.tryConsume(FIVE_PER_MINUTE, START) > 0);
+    }
+
+
+    @Test
+    void returnsTheTimeUntilTheNextToken() {
+        TokenBucket bucket = emptyBucket(FIVE_PER_MINUTE, START);
+
+        assertWaitSeconds(12, bucket.tryConsume(FIVE_PER_MINUTE, START));
+        assertWaitSeconds(2, bucket.tryConsume(FIVE_PER_MINUTE, START + TimeUnit.SECONDS.toNanos(10)));
+    }
+
+
+    @Test
+    void refillsAtTheRateOfTheRule() {
+        TokenBucket bucket = emptyBucket(FIVE_PER_MINUTE, START);
+        long oneTokenLater = START + TimeUnit.SECONDS.toNanos(12);
+
+        assertEquals(0, bucket.tryConsume(FIVE_PER_MINUTE, oneTokenLater));
+        assertTrue(bucket.tryConsume(FIVE_PER_MINUTE, oneTokenLater) > 0);
+    }
+
+
+    @Test
+    void doesNotRefillBeyondTheCapacity() {
+        TokenBucket bucket = emptyBucket(FIVE_PER_MINUTE, START);
+        long muchLater = START + TimeUnit.HOURS.toNanos(1);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(FIVE_PER_MINUTE, muchLater));
+        }
+        assertTrue(bucket.tryConsume(FIVE_PER_MINUTE, muchLater) > 0);
+    }
+
+
+    @Test
+    void ignoresAnEarlierTimeFromAnotherThread() {
+        TokenBucket bucket = emptyBucket(FIVE_PER_MINUTE, START);
+
+        assertWaitSeconds(12, bucket.tryConsume(FIVE_PER_MINUTE, START - TimeUnit.SECONDS.toNanos(5)));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static TokenBucket emptyBucket(RateLimitRule rule, long nowNanos) {
+        TokenBucket bucket = new TokenBucket(rule, nowNanos);
+        for (int i = 0; i < rule.capacity(); i++) {
+            bucket.tryConsume(rule, nowNanos);
+        }
+        return bucket;
+    }
+
+
+    private static void assertWaitSeconds(long expectedSeconds, long waitNanos) {
+        assertEquals(TimeUnit.SECONDS.toNanos(expectedSeconds), waitNanos, TimeUnit.MICROSECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,43 @@
+package com.sasindu.springsecurity.security.services;
+
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.repository.IUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+
+class AppUserDetailsServiceTest {
+
+    @Test
+    void savesTheUpgradedHashOnTheLoadedUserWithoutReadingItAgain() {
+        IUserRepository userRepository = mock(IUserRepository.class);
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        AppUser user = new AppUser();
+        user.setEmail("user@example.com");
+        user.setPassword("$2a$10$old");
+
+        new AppUserDetailsService(userRepository).updatePassword(user, "{argon2}new-hash");
+
+        assertEquals("{argon2}new-hash", user.getPassword());
+        verify(userRepository).save(user);
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+
+    @Test
+    void readsTheUserWhenGivenOtherUserDetails() {
+        IUserRepository userRepository = mock(IUserRepository.class);
+        AppUser user = new AppUser();
+        user.setEmail("user@example.com");
+        when(userRepository.findByEmail("user@example.com")).thenReturn(user);
+
+        new AppUserDetailsService(userRepository).updatePassword(User.withUsername("user@example.com").password("old").build(), "{argon2}new-hash");
+
+        assertEquals("{argon2}new-hash", user.getPassword());
+        verify(userRepository).save(user);
+    }
+}
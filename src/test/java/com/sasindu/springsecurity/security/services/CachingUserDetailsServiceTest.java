@@ -0,0 +1,72 @@
+package com.sasindu.springsecurity.security.services;
+
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.security.jwt.JWTUserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CachingUserDetailsServiceTest {
+    private AppUserDetailsService userDetailsService;
+    private AppUser user;
+
+
+    @BeforeEach
+    void setUp() {
+        userDetailsService = mock(AppUserDetailsService.class);
+        user = new AppUser();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        user.setRole("ROLE_USER");
+        user.setIsEmailVerified(true);
+        when(userDetailsService.loadUserByUsername("user@example.com")).thenReturn(user);
+    }
+
+
+    @Test
+    void cachesAnImmutableSnapshotInsteadOfTheEntity() {
+        CachingUserDetailsService cache = new CachingUserDetailsService(userDetailsService, true, 100, 60);
+
+        UserDetails first = cache.loadUserByUsername("user@example.com");
+        user.setRole("ROLE_ADMIN");
+        UserDetails second = cache.loadUserByUsername("user@example.com");
+
+        JWTUserPrincipal principal = assertInstanceOf(JWTUserPrincipal.class, first);
+        assertSame(first, second);
+        assertEquals(1L, principal.getId());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+        assertTrue(principal.isEnabled());
+        assertNull(principal.getPassword());
+        verify(userDetailsService, times(1)).loadUserByUsername(anyString());
+        assertEquals(1, cache.getStats().hitCount());
+    }
+
+
+    @Test
+    void evictsTheUserWhenThePasswordHashIsUpgraded() {
+        CachingUserDetailsService cache = new CachingUserDetailsService(userDetailsService, true, 100, 60);
+        when(userDetailsService.updatePassword(any(), anyString())).thenReturn(user);
+
+        cache.loadUserByUsername("user@example.com");
+        cache.updatePassword(user, "{bcrypt}new-hash");
+        cache.loadUserByUsername("user@example.com");
+
+        verify(userDetailsService).updatePassword(user, "{bcrypt}new-hash");
+        verify(userDetailsService, times(2)).loadUserByUsername("user@example.com");
+    }
+
+
+    @Test
+    void loadsTheEntityOnEveryCallWhenDisabled() {
+        CachingUserDetailsService cache = new CachingUserDetailsService(userDetailsService, false, 100, 60);
+
+        assertSame(user, cache.loadUserByUsername("user@example.com"));
+        assertSame(user, cache.loadUserByUsername("user@example.com"));
+        verify(userDetailsService, times(2)).loadUserByUsername("user@example.com");
+    }
+}
@@ -0,0 +1,82 @@
+package com.sasindu.springsecurity.security.services;
+
+import com.sasindu.springsecurity.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class PasswordHashingExecutorTest {
+    private PasswordHashingExecutor executor;
+
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+
+    @Test
+    void runsTheTaskOnThePool() {
+        executor = new PasswordHashingExecutor(1, 1, 1000);
+
+        assertTrue(executor.execute(() -> Thread.currentThread().getName().startsWith("password-hash-")));
+        assertEquals(1, executor.getTaskCount());
+    }
+
+
+    @Test
+    void countsTheTasksRejectedWhenTheQueueIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(1, 1, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> executor.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        started.await();
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> executor.execute(() -> null));
+        while (executor.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> executor.execute(() -> null));
+        release.countDown();
+        running.get();
+        queued.get();
+
+        assertEquals(1, executor.getRejectedCount());
+        assertEquals(0, executor.getTimeoutCount());
+    }
+
+
+    @Test
+    void countsTheTasksThatTimedOut() {
+        executor = new PasswordHashingExecutor(1, 1, 50);
+
+        assertThrows(ServiceUnavailableException.class, () -> executor.execute(() -> {
+            awaitQuietly(new CountDownLatch(1));
+            return null;
+        }));
+
+        assertEquals(1, executor.getTimeoutCount());
+        assertEquals(0, executor.getRejectedCount());
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
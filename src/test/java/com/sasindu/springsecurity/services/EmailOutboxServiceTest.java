@@ -0,0 +1,117 @@
+package com.sasindu.springsecurity.services;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.sasindu.springsecurity.entities.EmailOutbox;
+import com.sasindu.springsecurity.helpers.EmailService;
+import com.sasindu.springsecurity.repository.IEmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Delivery through a local SMTP stand-in (GreenMail) with two outbox services sharing one outbox table,
+ * as two instances of the application would
+ */
+@DataJpaTest
+@Import(EmailService.class)
+@ImportAutoConfiguration(MailSenderAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("test", "test"));
+
+    @Autowired
+    private IEmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    private final List<EmailOutboxService> instances = new ArrayList<>();
+
+
+    @AfterEach
+    void tearDown() {
+        instances.forEach(EmailOutboxService::shutdown);
+        emailOutboxRepository.deleteAll();
+    }
+
+
+    @Test
+    void deliversAnEnqueuedEmailAndRemovesItFromTheOutbox() throws Exception {
+        EmailOutboxService outbox = startInstance();
+
+        outbox.enqueue("user@example.com", "Verify your email", "<p>123456</p>");
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+        assertEquals("Verify your email", greenMail.getReceivedMessages()[0].getSubject());
+        awaitEmptyOutbox();
+    }
+
+
+    @Test
+    void sendsEachEmailOnceWhenSeveralInstancesPollTheSameOutbox() throws Exception {
+        int count = 20;
+        for (int i = 0; i < count; i++) {
+            emailOutboxRepository.save(new EmailOutbox("user" + i + "@example.com", "OTP " + i, "<p>" + i + "</p>"));
+        }
+        EmailOutboxService first = startInstance();
+        EmailOutboxService second = startInstance();
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(first::pollOutbox),
+                CompletableFuture.runAsync(second::pollOutbox)
+        ).join();
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, count));
+        awaitEmptyOutbox();
+        // Give a duplicate the time to arrive
+        Thread.sleep(500);
+        assertEquals(count, greenMail.getReceivedMessages().length);
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private EmailOutboxService startInstance() {
+        EmailOutboxService outbox = new EmailOutboxService(emailOutboxRepository, emailService, 100);
+        ReflectionTestUtils.setField(outbox, "workerCount", 2);
+        ReflectionTestUtils.setField(outbox, "batchSize", 5);
+        ReflectionTestUtils.setField(outbox, "batchWindowMillis", 50L);
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 5);
+        ReflectionTestUtils.setField(outbox, "retryBaseDelaySeconds", 30L);
+        ReflectionTestUtils.setField(outbox, "claimLeaseSeconds", 300L);
+        outbox.start();
+        instances.add(outbox);
+        return outbox;
+    }
+
+
+    private void awaitEmptyOutbox() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (emailOutboxRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, emailOutboxRepository.count());
+    }
+}
@@ -0,0 +1,119 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.enums.OtpEmailType;
+import com.sasindu.springsecurity.abstractions.enums.OtpVerificationResult;
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.entities.UserOtp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class InMemoryOtpStoreTest {
+    private static final String SNAPSHOT_KEY = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+
+    @TempDir
+    private Path directory;
+
+
+    @Test
+    void matchesOnlyTheStoredCodeOfTheTypeAndUser() {
+        InMemoryOtpStore store = new InMemoryOtpStore("", "");
+        store.put(otp(OtpEmailType.EMAIL, 1L, "AB1234", 5));
+
+        assertEquals(OtpVerificationResult.VALID, store.verify(OtpEmailType.EMAIL, 1L, "AB1234"));
+        assertEquals(OtpVerificationResult.INVALID, store.verify(OtpEmailType.EMAIL, 1L, "AB1235"));
+        assertEquals(OtpVerificationResult.NOT_FOUND, store.verify(OtpEmailType.PASSWORD, 1L, "AB1234"));
+        assertEquals(OtpVerificationResult.NOT_FOUND, store.verify(OtpEmailType.EMAIL, 2L, "AB1234"));
+        assertEquals(OtpVerificationResult.INVALID, store.verify(OtpEmailType.EMAIL, 1L, null));
+    }
+
+
+    @Test
+    void reportsTheExpiredOtpsNotSweptYetOnlyForTheRightCode() {
+        InMemoryOtpStore store = new InMemoryOtpStore("", "");
+        store.put(otp(OtpEmailType.PASSWORD, 1L, "AB1234", -1));
+
+        assertEquals(OtpVerificationResult.EXPIRED, store.verify(OtpEmailType.PASSWORD, 1L, "AB1234"));
+        assertEquals(OtpVerificationResult.INVALID, store.verify(OtpEmailType.PASSWORD, 1L, "AB1235"));
+    }
+
+
+    @Test
+    void replacesAndDeletesTheOtpOfATypeAndUser() {
+        InMemoryOtpStore store = new InMemoryOtpStore("", "");
+        store.put(otp(OtpEmailType.EMAIL, 1L, "AB1234", 5));
+        store.put(otp(OtpEmailType.EMAIL, 1L, "CD5678", 5));
+
+        assertEquals(OtpVerificationResult.INVALID, store.verify(OtpEmailType.EMAIL, 1L, "AB1234"));
+        assertEquals(OtpVerificationResult.VALID, store.verify(OtpEmailType.EMAIL, 1L, "CD5678"));
+
+        store.delete(OtpEmailType.EMAIL, 1L);
+        assertEquals(0, store.size());
+    }
+
+
+    @Test
+    void sweepsTheExpiredOtps() throws Exception {
+        InMemoryOtpStore store = new InMemoryOtpStore("", "");
+        UserOtp expiring = otp(OtpEmailType.EMAIL, 1L, "AB1234", 0);
+        expiring.setExpires(LocalDateTime.now().plusNanos(500_000_000));
+        store.put(expiring);
+        store.put(otp(OtpEmailType.EMAIL, 2L, "CD5678", 5));
+
+        Thread.sleep(2100);
+        store.sweep();
+
+        assertEquals(1, store.size());
+        assertEquals(OtpVerificationResult.NOT_FOUND, store.verify(OtpEmailType.EMAIL, 1L, "AB1234"));
+    }
+
+
+    @Test
+    void savesHashesInTheSnapshotAndRestoresThemWithTheSameKey() throws Exception {
+        Path snapshot = directory.resolve("otp.snapshot");
+        InMemoryOtpStore store = new InMemoryOtpStore(snapshot.toString(), SNAPSHOT_KEY);
+        store.put(otp(OtpEmailType.EMAIL, 1L, "AB1234", 5));
+        store.put(otp(OtpEmailType.PASSWORD, 2L, "CD5678", -1));
+
+        store.saveSnapshot();
+        String written = Files.readString(snapshot, StandardCharsets.UTF_8);
+        assertFalse(written.contains("AB1234"));
+        assertFalse(written.contains("CD5678"));
+
+        InMemoryOtpStore restarted = new InMemoryOtpStore(snapshot.toString(), SNAPSHOT_KEY);
+        restarted.loadSnapshot();
+
+        assertEquals(1, restarted.size());
+        assertEquals(OtpVerificationResult.VALID, restarted.verify(OtpEmailType.EMAIL, 1L, "AB1234"));
+        assertFalse(Files.exists(snapshot));
+    }
+
+
+    @Test
+    void doesNotWriteASnapshotWithoutAKey() {
+        Path snapshot = directory.resolve("otp.snapshot");
+        InMemoryOtpStore store = new InMemoryOtpStore(snapshot.toString(), "");
+        store.put(otp(OtpEmailType.EMAIL, 1L, "AB1234", 5));
+
+        store.saveSnapshot();
+
+        assertFalse(Files.exists(snapshot));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static UserOtp otp(OtpEmailType type, Long userId, String code, int expiresInMinutes) {
+        AppUser user = new AppUser();
+        user.setId(userId);
+        return new UserOtp(null, type, code, LocalDateTime.now().plusMinutes(expiresInMinutes), user);
+    }
+}
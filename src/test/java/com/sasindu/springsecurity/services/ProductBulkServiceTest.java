@@ -0,0 +1,78 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductImportResponseDto;
+import com.sasindu.springsecurity.abstractions.interfaces.ICategoryService;
+import com.sasindu.springsecurity.entities.Category;
+import com.sasindu.springsecurity.exceptions.ConflictException;
+import com.sasindu.springsecurity.helpers.CatalogueVersion;
+import com.sasindu.springsecurity.helpers.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+
+class ProductBulkServiceTest {
+    private JdbcTemplate jdbcTemplate;
+    private ICategoryService categoryService;
+    private ProductSearchIndex productSearchIndex;
+    private ProductBulkService productBulkService;
+
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        categoryService = mock(ICategoryService.class);
+        productSearchIndex = new ProductSearchIndex();
+        productBulkService = new ProductBulkService(jdbcTemplate, categoryService, productSearchIndex, mock(CatalogueVersion.class));
+        when(categoryService.getCategoryByName("lighting")).thenReturn(new Category(7L, "lighting", new HashSet<>()));
+    }
+
+
+    @Test
+    void skipsTheRowsWhoseCategoryWasCreatedConcurrentlyButCannotBeReadYet() {
+        when(categoryService.createCategory(any())).thenThrow(new ConflictException("Category already exists"));
+
+        ProductImportResponseDto response = productBulkService.importProducts(csv("name,category\nPhone,Phones\nLamp,lighting\n"), "csv");
+
+        assertEquals(1, response.getImported());
+        assertEquals(1, response.getSkipped());
+        assertEquals(1, response.getErrors().size());
+        assertTrue(response.getErrors().getFirst().startsWith("Line 2: "));
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 1 && rows.getFirst()[1].equals("Lamp")));
+    }
+
+
+    @Test
+    void looksTheCategoryUpAgainForTheNextRowsAfterAFailedResolution() {
+        when(categoryService.getCategoryByName("phones"))
+                .thenReturn(null)
+                .thenReturn(null)
+                .thenReturn(new Category(8L, "phones", new HashSet<>()));
+        when(categoryService.createCategory(any())).thenThrow(new ConflictException("Category already exists"));
+
+        ProductImportResponseDto response = productBulkService.importProducts(csv("name,category\nPhone,phones\nPhone case,phones\n"), "csv");
+
+        assertEquals(1, response.getImported());
+        assertEquals(1, response.getSkipped());
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 1 && rows.getFirst()[2].equals(8L)));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
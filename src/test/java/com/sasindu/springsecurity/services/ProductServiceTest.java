@@ -0,0 +1,150 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.dto.request.product.AddProductRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.request.product.UpdateProductRequestDto;
+import com.sasindu.springsecurity.abstractions.dto.response.product.ProductResponseDto;
+import com.sasindu.springsecurity.entities.Category;
+import com.sasindu.springsecurity.entities.Product;
+import com.sasindu.springsecurity.helpers.CatalogueVersion;
+import com.sasindu.springsecurity.helpers.CategoryCatalogue;
+import com.sasindu.springsecurity.helpers.ProductSearchIndex;
+import com.sasindu.springsecurity.repository.ICatalogueDeletionRepository;
+import com.sasindu.springsecurity.repository.ICatalogueStateRepository;
+import com.sasindu.springsecurity.repository.ICategoryRepository;
+import com.sasindu.springsecurity.repository.IProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Two product services over the same database, each with its own search index, as on two instances of the application
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductServiceTest {
+
+    @Autowired
+    private IProductRepository productRepository;
+
+    @Autowired
+    private ICategoryRepository categoryRepository;
+
+    @Autowired
+    private ICatalogueDeletionRepository catalogueDeletionRepository;
+
+    @Autowired
+    private ICatalogueStateRepository catalogueStateRepository;
+
+    private Instance instanceA;
+    private Instance instanceB;
+
+
+    @BeforeEach
+    void setUp() {
+        instanceA = new Instance();
+        instanceB = new Instance();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        catalogueDeletionRepository.deleteAll();
+        catalogueStateRepository.deleteAll();
+    }
+
+
+    @Test
+    void searchesTheDatabaseUntilTheIndexCaughtUpWithTheChangesOfAnotherInstance() {
+        Product added = instanceA.productService.addProduct(product("Phone", "phones"));
+
+        assertTrue(instanceB.index.search("phone", null, null, 10).isEmpty());
+        assertEquals(List.of(added.getId()), ids(instanceB.productService.getAllProducts("Phone", null, null, null).getItems()));
+
+        instanceB.productService.refreshSearchIndex();
+
+        assertEquals(List.of(added.getId()), ids(instanceB.index.search("phone", null, null, 10).stream().map(ProductSearchIndex.SearchHit::product).toList()));
+        assertTrue(instanceB.index.isSyncedWith(instanceB.catalogueVersion.current().version()));
+    }
+
+
+    @Test
+    void refreshesTheIndexWithTheUpdatesAndDeletionsOfAnotherInstance() {
+        Product renamed = instanceA.productService.addProduct(product("Phone", "phones"));
+        Product deleted = instanceA.productService.addProduct(product("Phone case", "accessories"));
+        instanceA.productService.addProduct(product("Phone charger", "chargers"));
+        instanceB.productService.refreshSearchIndex();
+        assertEquals(3, instanceB.index.search("phone", null, null, 10).size());
+
+        UpdateProductRequestDto update = new UpdateProductRequestDto();
+        update.setName("Smartphone");
+        update.setCategoryName("phones");
+        instanceA.productService.updateProduct(update, renamed.getId());
+        instanceA.productService.deleteProduct(deleted.getId());
+        instanceA.categoryService.deleteCategory(categoryRepository.findByName("chargers").getId());
+        instanceB.productService.refreshSearchIndex();
+
+        List<ProductSearchIndex.SearchHit> hits = instanceB.index.search("phone", null, null, 10);
+        assertEquals(1, hits.size());
+        assertEquals("Smartphone", hits.getFirst().product().getName());
+    }
+
+
+    @Test
+    void refreshesTheCategoryNamesRenamedByAnotherInstance() {
+        instanceA.productService.addProduct(product("Phone", "phones"));
+        instanceB.productService.refreshSearchIndex();
+
+        Category category = categoryRepository.findByName("phones");
+        category.setName("mobiles");
+        categoryRepository.save(category);
+        instanceA.catalogueVersion.increment();
+        instanceB.productService.refreshSearchIndex();
+
+        assertEquals("mobiles", instanceB.index.search("phone", null, null, 10).getFirst().product().getCategory().getName());
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private static AddProductRequestDto product(String name, String categoryName) {
+        AddProductRequestDto request = new AddProductRequestDto();
+        request.setName(name);
+        request.setCategoryName(categoryName);
+        return request;
+    }
+
+
+    private static List<Long> ids(List<ProductResponseDto> products) {
+        return products.stream().map(ProductResponseDto::getId).toList();
+    }
+
+
+    /**
+     * The services of one instance, with its own catalogue and search index - the index is built empty
+     */
+    private class Instance {
+        private final ProductSearchIndex index = new ProductSearchIndex();
+        private final CatalogueVersion catalogueVersion = new CatalogueVersion(catalogueStateRepository, 0);
+        private final CategoryService categoryService = new CategoryService(categoryRepository, new CategoryCatalogue(categoryRepository), catalogueVersion, index, catalogueDeletionRepository);
+        private final ProductService productService = new ProductService(productRepository, categoryService, index, catalogueVersion, catalogueDeletionRepository, categoryRepository);
+
+        private Instance() {
+            ReflectionTestUtils.setField(productService, "defaultPageSize", 20);
+            ReflectionTestUtils.setField(productService, "maxPageSize", 100);
+            productService.rebuildSearchIndex();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.entities.RefreshTokenFamily;
+import com.sasindu.springsecurity.exceptions.ForbiddenException;
+import com.sasindu.springsecurity.repository.IRefreshTokenFamilyRepository;
+import com.sasindu.springsecurity.security.jwt.JWTUtils;
+import com.sasindu.springsecurity.security.jwt.RefreshTokenClaims;
+import com.sasindu.springsecurity.security.jwt.RefreshTokenRevocationIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Rotation of the refresh tokens against the database - the mocked JWTUtils returns the jti as the token
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private IRefreshTokenFamilyRepository refreshTokenFamilyRepository;
+
+    private RefreshTokenRevocationIndex revocationIndex;
+    private RefreshTokenService refreshTokenService;
+    private AppUser user;
+
+
+    @BeforeEach
+    void setUp() {
+        JWTUtils jwtUtils = mock(JWTUtils.class);
+        when(jwtUtils.generateRefreshToken(any(), anyLong(), anyString(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+        revocationIndex = new RefreshTokenRevocationIndex();
+        refreshTokenService = new RefreshTokenService(refreshTokenFamilyRepository, revocationIndex, jwtUtils);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenExpirationDays", "7");
+        ReflectionTestUtils.setField(refreshTokenService, "rotationGraceSeconds", 10L);
+        user = new AppUser();
+        user.setId(1L);
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenFamilyRepository.deleteAll();
+    }
+
+
+    @Test
+    void rotatesToANewToken() {
+        String first = refreshTokenService.createFamily(user);
+        Long familyId = refreshTokenFamilyRepository.findAll().getFirst().getId();
+
+        String second = refreshTokenService.rotate(claims(familyId, first), user);
+
+        assertNotEquals(first, second);
+        assertEquals(second, refreshTokenFamilyRepository.findById(familyId).orElseThrow().getCurrentJti());
+    }
+
+
+    @Test
+    void givesTheCurrentTokenToAConcurrentRefreshOfTheSameToken() {
+        String first = refreshTokenService.createFamily(user);
+        Long familyId = refreshTokenFamilyRepository.findAll().getFirst().getId();
+
+        String winner = refreshTokenService.rotate(claims(familyId, first), user);
+        String loser = refreshTokenService.rotate(claims(familyId, first), user);
+
+        assertEquals(winner, loser);
+        assertFalse(revocationIndex.isRevoked(familyId));
+        assertFalse(refreshTokenFamilyRepository.findById(familyId).orElseThrow().isRevoked());
+    }
+
+
+    @Test
+    void revokesTheFamilyWhenTheRotatedTokenIsReplayedAfterTheGracePeriod() {
+        String first = refreshTokenService.createFamily(user);
+        Long familyId = refreshTokenFamilyRepository.findAll().getFirst().getId();
+        refreshTokenService.rotate(claims(familyId, first), user);
+        RefreshTokenFamily family = refreshTokenFamilyRepository.findById(familyId).orElseThrow();
+        family.setRotatedAt(LocalDateTime.now().minusSeconds(11));
+        refreshTokenFamilyRepository.save(family);
+
+        assertThrows(ForbiddenException.class, () -> refreshTokenService.rotate(claims(familyId, first), user));
+        assertTrue(revocationIndex.isRevoked(familyId));
+        assertTrue(refreshTokenFamilyRepository.findById(familyId).orElseThrow().isRevoked());
+    }
+
+
+    @Test
+    void revokesTheFamilyWhenAnOlderTokenIsReplayed() {
+        String first = refreshTokenService.createFamily(user);
+        Long familyId = refreshTokenFamilyRepository.findAll().getFirst().getId();
+        String second = refreshTokenService.rotate(claims(familyId, first), user);
+        refreshTokenService.rotate(claims(familyId, second), user);
+
+        assertThrows(ForbiddenException.class, () -> refreshTokenService.rotate(claims(familyId, first), user));
+        assertTrue(revocationIndex.isRevoked(familyId));
+    }
+
+
+    @Test
+    void doesNotReviveARevokedFamilyWithinTheGracePeriod() {
+        String first = refreshTokenService.createFamily(user);
+        Long familyId = refreshTokenFamilyRepository.findAll().getFirst().getId();
+        refreshTokenService.rotate(claims(familyId, first), user);
+        refreshTokenService.revokeAllForUser(user.getId());
+
+        assertThrows(ForbiddenException.class, () -> refreshTokenService.rotate(claims(familyId, first), user));
+    }
+
+
+    //! PRIVATE METHODS >>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>> //
+
+
+    private RefreshTokenClaims claims(Long familyId, String jti) {
+        return new RefreshTokenClaims(user.getId(), familyId, jti, Instant.now().plusSeconds(60));
+    }
+}
@@ -0,0 +1,79 @@
+package com.sasindu.springsecurity.services;
+
+import com.sasindu.springsecurity.abstractions.dto.request.user.UpdateUserPasswordRequestDto;
+import com.sasindu.springsecurity.abstractions.interfaces.IAccessTokenRevocationService;
+import com.sasindu.springsecurity.abstractions.interfaces.IAuthService;
+import com.sasindu.springsecurity.abstractions.interfaces.IRefreshTokenService;
+import com.sasindu.springsecurity.entities.AppUser;
+import com.sasindu.springsecurity.repository.IUserRepository;
+import com.sasindu.springsecurity.security.services.CachingUserDetailsService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+
+class UserServiceTest {
+
+    @Test
+    void storesTheHashOfTheNewPassword() {
+        IUserRepository userRepository = mock(IUserRepository.class);
+        IAuthService authService = mock(IAuthService.class);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        UserService userService = new UserService(userRepository, authService, mock(CachingUserDetailsService.class),
+                mock(IRefreshTokenService.class), mock(IAccessTokenRevocationService.class), passwordEncoder);
+
+        AppUser user = new AppUser();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(authService.isPasswordCorrect(user, "Old@password1")).thenReturn(true);
+        when(passwordEncoder.encode("New@password1")).thenReturn("{bcrypt}hash");
+
+        UpdateUserPasswordRequestDto request = new UpdateUserPasswordRequestDto();
+        request.setOldPassword("Old@password1");
+        request.setNewPassword("New@password1");
+        request.setConfirmNewPassword("New@password1");
+        userService.updateUserPassword(request, 1L, new MockHttpServletResponse());
+
+        ArgumentCaptor<AppUser> saved = ArgumentCaptor.forClass(AppUser.class);
+        verify(userRepository).save(saved.capture());
+        assertEquals("{bcrypt}hash", saved.getValue().getPassword());
+    }
+
+
+    @Test
+    void revokesAllTheSessionsExceptTheNewOneOfTheCaller() {
+        IUserRepository userRepository = mock(IUserRepository.class);
+        IAuthService authService = mock(IAuthService.class);
+        IRefreshTokenService refreshTokenService = mock(IRefreshTokenService.class);
+        IAccessTokenRevocationService accessTokenRevocationService = mock(IAccessTokenRevocationService.class);
+        UserService userService = new UserService(userRepository, authService, mock(CachingUserDetailsService.class),
+                refreshTokenService, accessTokenRevocationService, mock(PasswordEncoder.class));
+
+        AppUser user = new AppUser();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(authService.isPasswordCorrect(user, "Old@password1")).thenReturn(true);
+
+        UpdateUserPasswordRequestDto request = new UpdateUserPasswordRequestDto();
+        request.setOldPassword("Old@password1");
+        request.setNewPassword("New@password1");
+        request.setConfirmNewPassword("New@password1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(authService.startSession(user, response)).thenReturn("new-session");
+        userService.updateUserPassword(request, 1L, response);
+
+        InOrder inOrder = inOrder(refreshTokenService, accessTokenRevocationService, authService);
+        inOrder.verify(refreshTokenService).revokeAllForUser(1L);
+        inOrder.verify(authService).startSession(user, response);
+        inOrder.verify(accessTokenRevocationService).revokeAllForUser(1L, "new-session");
+    }
+}